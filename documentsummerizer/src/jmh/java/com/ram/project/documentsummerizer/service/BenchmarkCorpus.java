@@ -0,0 +1,156 @@
+package com.ram.project.documentsummerizer.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Generated PDFs for the benchmarks, written once to target/jmh-corpus and reused by later runs.
+// NATIVE pages carry a text layer, SCANNED pages are a JPEG of rendered text (no text layer, like a
+// scanner produces) and MIXED alternates the two, which is what sends a document down the per-page OCR route.
+// DEGRADED is SCANNED the way real scans come in: skewed a few degrees, grey paper with specks, a dark
+// scanner edge, and every fifth page blank.
+public final class BenchmarkCorpus {
+
+    public enum Kind { NATIVE, SCANNED, MIXED, DEGRADED }
+
+    private static final Path CORPUS_DIR = Path.of("target", "jmh-corpus");
+    private static final String[] WORDS = ("the agreement party shall provide notice within thirty days of termination "
+            + "patient presented with acute symptoms diagnosis treatment plan follow review liability indemnity "
+            + "clause section contract obligations payment schedule hereby confidential information disclosure "
+            + "court jurisdiction medical history prescribed dosage clinical findings assessment recommendation").split(" ");
+    private static final int LINES_PER_PAGE = 40;
+    private static final int SCAN_DPI = 150;
+
+    private BenchmarkCorpus() {
+    }
+
+    static Path pdf(Kind kind, int pages) throws IOException {
+        Path file = CORPUS_DIR.resolve(kind.name().toLowerCase() + "-" + pages + ".pdf");
+        if (Files.notExists(file)) {
+            Files.createDirectories(CORPUS_DIR);
+            Path tmp = Files.createTempFile(CORPUS_DIR, "corpus-", ".pdf");
+            generate(kind, pages, tmp);
+            Files.move(tmp, file);
+        }
+        return file;
+    }
+
+    // same words the PDFs are made of, for benchmarks that only need text
+    static String text(int lines, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            text.append(line(random)).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static void generate(Kind kind, int pages, Path target) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < pages; i++) {
+                boolean scanned = kind == Kind.SCANNED || kind == Kind.DEGRADED || (kind == Kind.MIXED && i % 2 == 1);
+                List<String> lines = lines(i);
+                if (kind == Kind.DEGRADED) {
+                    addScannedPage(document, i % 5 == 4 ? List.of() : lines, new Random(i));
+                } else if (scanned) {
+                    addScannedPage(document, lines, null);
+                } else {
+                    addTextPage(document, lines);
+                }
+            }
+            document.save(target.toFile());
+        }
+    }
+
+    private static List<String> lines(long seed) {
+        Random random = new Random(seed);
+        List<String> lines = new ArrayList<>(LINES_PER_PAGE);
+        for (int i = 0; i < LINES_PER_PAGE; i++) {
+            lines.add(line(random));
+        }
+        return lines;
+    }
+
+    private static String line(Random random) {
+        StringBuilder line = new StringBuilder();
+        for (int w = 0; w < 11; w++) {
+            if (w > 0) {
+                line.append(' ');
+            }
+            line.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return line.append('.').toString();
+    }
+
+    private static void addTextPage(PDDocument document, List<String> lines) throws IOException {
+        PDPage page = new PDPage(PDRectangle.LETTER);
+        document.addPage(page);
+        try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+            content.beginText();
+            content.setFont(PDType1Font.HELVETICA, 10);
+            content.setLeading(16);
+            content.newLineAtOffset(50, 740);
+            for (String line : lines) {
+                content.showText(line);
+                content.newLine();
+            }
+            content.endText();
+        }
+    }
+
+    // degradation is null for a clean scan
+    private static void addScannedPage(PDDocument document, List<String> lines, Random degradation) throws IOException {
+        PDRectangle size = PDRectangle.LETTER;
+        int width = Math.round(size.getWidth() / 72 * SCAN_DPI);
+        int height = Math.round(size.getHeight() / 72 * SCAN_DPI);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            if (degradation != null) {
+                g.setColor(new Color(232, 230, 226));
+            }
+            g.fillRect(0, 0, width, height);
+            g.setColor(Color.BLACK);
+            if (degradation != null) {
+                g.fillRect(0, 0, SCAN_DPI / 6, height);
+                for (int i = 0; i < 400; i++) {
+                    g.fillRect(degradation.nextInt(width), degradation.nextInt(height), 2, 2);
+                }
+                g.rotate(Math.toRadians(degradation.nextDouble() * 6 - 3), width / 2.0, height / 2.0);
+            }
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setFont(new Font(Font.SERIF, Font.PLAIN, SCAN_DPI * 10 / 72));
+            int lineHeight = SCAN_DPI * 16 / 72;
+            int y = SCAN_DPI * 52 / 72;
+            for (String line : lines) {
+                g.drawString(line, SCAN_DPI * 50 / 72, y);
+                y += lineHeight;
+            }
+        } finally {
+            g.dispose();
+        }
+        PDPage page = new PDPage(size);
+        document.addPage(page);
+        PDImageXObject scan = JPEGFactory.createFromImage(document, image, 0.8f);
+        try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+            content.drawImage(scan, 0, 0, size.getWidth(), size.getHeight());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.ram.project.documentsummerizer.service;
+
+import com.ram.project.documentsummerizer.DocumentSummarizerApplication;
+import net.sourceforge.tess4j.TesseractException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// processAndSaveDocument through the real Spring context: embedded MongoDB (flapdoodle, downloads
+// mongod on first use) and the Groq stub. The extraction cache is off so every call does the full work.
+// SCANNED/MIXED also need Tesseract, see OcrBenchmark.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class EndToEndBenchmark {
+
+    @Param({"NATIVE"})
+    public BenchmarkCorpus.Kind kind;
+
+    @Param({"1", "10", "100"})
+    public int pages;
+
+    @Param({"200"})
+    public long groqLatencyMillis;
+
+    private GroqStubServer groq;
+    private ConfigurableApplicationContext context;
+    private DocumentService documentService;
+    private MockMultipartFile upload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path pdf = BenchmarkCorpus.pdf(kind, pages);
+        upload = new MockMultipartFile("file", pdf.getFileName().toString(), "application/pdf", Files.readAllBytes(pdf));
+        groq = new GroqStubServer(groqLatencyMillis);
+
+        SpringApplication application = new SpringApplication(DocumentSummarizerApplication.class);
+        application.setDefaultProperties(Map.of(
+                "server.port", "0",
+                "groq.api.key", "benchmark",
+                "groq.base-url", groq.baseUrl(),
+                "groq.rate-limit.requests-per-minute", "1000000",
+                "groq.rate-limit.tokens-per-minute", "1000000000",
+                "extraction-cache.enabled", "false",
+                "de.flapdoodle.mongodb.embedded.version", "7.0.14",
+                "ocr.tesseract.datapath", System.getProperty("ocr.tesseract.datapath", "/usr/share/tesseract-ocr/5/tessdata")));
+        context = application.run();
+        documentService = context.getBean(DocumentService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        groq.close();
+    }
+
+    @Benchmark
+    public String processAndSaveDocument() throws IOException, TesseractException {
+        return documentService.processAndSaveDocument(upload, true);
+    }
+}
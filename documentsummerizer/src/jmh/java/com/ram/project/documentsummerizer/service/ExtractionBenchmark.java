@@ -0,0 +1,62 @@
+package com.ram.project.documentsummerizer.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// PDF load and native text extraction (the per-page PDFTextStripper pass) across corpus sizes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ExtractionBenchmark {
+
+    @Param({"NATIVE", "SCANNED", "MIXED"})
+    public BenchmarkCorpus.Kind kind;
+
+    @Param({"1", "10", "100", "500"})
+    public int pages;
+
+    private File pdf;
+    private PDDocument document;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        pdf = BenchmarkCorpus.pdf(kind, pages).toFile();
+        document = PDDocument.load(pdf);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        document.close();
+    }
+
+    @Benchmark
+    public int loadPdf() throws IOException {
+        try (PDDocument loaded = PDDocument.load(pdf)) {
+            return loaded.getNumberOfPages();
+        }
+    }
+
+    @Benchmark
+    public String[] extractTextFromNativePdf() throws IOException {
+        return DocumentService.extractTextFromNativePdf(document);
+    }
+}
@@ -0,0 +1,54 @@
+package com.ram.project.documentsummerizer.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+// Answers /chat/completions with a canned summary after a fixed delay, standing in for Groq
+// (point groq.base-url at baseUrl()) so end-to-end numbers don't depend on the network or on quota.
+final class GroqStubServer implements AutoCloseable {
+
+    private static final byte[] COMPLETION = "{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\"A short summary.\"}}]}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServer server;
+    private final long latencyMillis;
+
+    GroqStubServer(long latencyMillis) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/chat/completions", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getRequestBody().readAllBytes();
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, COMPLETION.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(COMPLETION);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,120 @@
+package com.ram.project.documentsummerizer.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.sourceforge.tess4j.TesseractException;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+// Page render at DPI and OCR throughput in pages/sec. Needs Tesseract installed, point it at the
+// language data with -Djmh.args="OcrBenchmark -jvmArgsAppend -Docr.tesseract.datapath=/path/to/tessdata".
+// ocrPages also reports how many pages per second pass the per-page text quality check (passedPages),
+// so passedPages / ocrPages is the pass rate with and without preprocessing.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class OcrBenchmark {
+
+    private static final int PAGES = 10;
+
+    @Param({"SCANNED", "DEGRADED"})
+    public BenchmarkCorpus.Kind kind;
+
+    @Param({"150", "300"})
+    public int dpi;
+
+    @Param({"GRAY", "BINARY"})
+    public ImageType imageType;
+
+    @Param({"false", "true"})
+    public boolean preprocess;
+
+    @Param({"0"})
+    public int threads;
+
+    private PDDocument document;
+    private PDFRenderer renderer;
+    private OcrService ocrService;
+    private OcrImagePreprocessor preprocessor;
+    private final List<Integer> pageIndices = IntStream.range(0, PAGES).boxed().toList();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        document = PDDocument.load(BenchmarkCorpus.pdf(kind, PAGES).toFile());
+        renderer = new PDFRenderer(document);
+        preprocessor = new OcrImagePreprocessor(preprocess, 0.001, true, 150, 40, true, 0.3);
+        ocrService = new OcrService(
+                System.getProperty("ocr.tesseract.datapath", "/usr/share/tesseract-ocr/5/tessdata"),
+                System.getProperty("ocr.tesseract.language", "eng"),
+                dpi, imageType, threads, 0, new PipelineMetrics(new SimpleMeterRegistry()),
+                preprocessor);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ocrService.shutdown();
+        document.close();
+    }
+
+    @Benchmark
+    public BufferedImage renderPage() throws IOException {
+        return renderer.renderImageWithDPI(0, dpi, imageType);
+    }
+
+    // what the OCR worker gets with preprocessing on: probe, render at the chosen DPI, deskew, binarize, crop
+    // (runs without Tesseract; compare with renderPage)
+    @Benchmark
+    public BufferedImage renderAndPreprocessPage() throws IOException {
+        OcrImagePreprocessor.Probe probe = preprocessor.probe(renderer, 0, dpi);
+        return preprocessor.clean(renderer.renderImageWithDPI(0, probe.dpi(), ImageType.GRAY), probe.skewDegrees(), probe.dpi());
+    }
+
+    // score is pages per second across the OCR pool
+    @Benchmark
+    @OperationsPerInvocation(PAGES)
+    public Map<Integer, String> ocrPages(QualityCounters counters) throws IOException, TesseractException {
+        Map<Integer, String> pages = ocrService.ocrPages(document, pageIndices, ProcessingListener.NONE);
+        for (String text : pages.values()) {
+            if (TextQualityAnalyzer.analyze(text).isSufficient(DocumentService.MIN_PAGE_TEXT_LENGTH_NATIVE)) {
+                counters.passedPages++;
+            }
+        }
+        return pages;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class QualityCounters {
+        public long passedPages;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            passedPages = 0;
+        }
+    }
+}
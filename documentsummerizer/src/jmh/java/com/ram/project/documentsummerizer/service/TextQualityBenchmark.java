@@ -0,0 +1,71 @@
+package com.ram.project.documentsummerizer.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// The quality heuristics run once per page (the document score is summed from the pages), so both
+// page-sized and document-sized texts matter.
+// "noisy" mimics bad OCR output: the same words with punctuation and stray symbols mixed in.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TextQualityBenchmark {
+
+    @Param({"40", "4000", "20000"})
+    public int lines;
+
+    @Param({"clean", "noisy"})
+    public String quality;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        String clean = BenchmarkCorpus.text(lines, 42);
+        text = "clean".equals(quality) ? clean : addNoise(clean);
+    }
+
+    @Benchmark
+    public TextQualityAnalyzer.Score analyze() {
+        return TextQualityAnalyzer.analyze(text);
+    }
+
+    // the regex version the analyzer replaced, for before/after numbers
+    @Benchmark
+    public boolean legacyIsTextQualitySufficient() {
+        return LegacyTextQuality.isTextQualitySufficient(text, DocumentService.MIN_TEXT_LENGTH_FOR_SUMMARY_PDFBOX);
+    }
+
+    @Benchmark
+    public boolean legacyIsLikelyHandwrittenOrPoorQuality() {
+        return LegacyTextQuality.isLikelyHandwrittenOrPoorQuality(text, "scan.pdf");
+    }
+
+    private static String addNoise(String text) {
+        Random random = new Random(7);
+        String noise = "|~;:,.'-_{}[]";
+        StringBuilder noisy = new StringBuilder(text.length() * 2);
+        for (char c : text.toCharArray()) {
+            noisy.append(c);
+            if (random.nextInt(4) == 0) {
+                noisy.append(noise.charAt(random.nextInt(noise.length())));
+            }
+        }
+        return noisy.toString();
+    }
+}
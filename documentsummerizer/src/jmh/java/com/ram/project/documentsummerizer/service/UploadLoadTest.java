@@ -0,0 +1,183 @@
+package com.ram.project.documentsummerizer.service;
+
+import com.ram.project.documentsummerizer.DocumentSummarizerApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Load test for the two threading modes: boots the app (embedded MongoDB + Groq stub, like EndToEndBenchmark)
+// once on platform threads and once with spring.threads.virtual.enabled, then keeps `concurrency` synchronous
+// uploads in flight and reports throughput and latency for each. Not a JMH benchmark, run it with
+//   mvn -Pjmh test-compile exec:exec -Djmh.main=com.ram.project.documentsummerizer.service.UploadLoadTest \
+//       -Djmh.args="concurrency=400 requests=2000 groqLatencyMillis=2000"
+public class UploadLoadTest {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(Map.of(
+                "mode", "both",
+                "concurrency", "400",
+                "requests", "2000",
+                "warmup", "50",
+                "pages", "1",
+                "groqLatencyMillis", "2000"));
+        Arrays.stream(args).map(arg -> arg.split("=", 2)).forEach(kv -> options.put(kv[0], kv[1]));
+
+        String mode = options.get("mode");
+        List<Boolean> runs = switch (mode) {
+            case "platform" -> List.of(false);
+            case "virtual" -> List.of(true);
+            default -> List.of(false, true);
+        };
+        byte[] pdf = Files.readAllBytes(BenchmarkCorpus.pdf(BenchmarkCorpus.Kind.NATIVE, Integer.parseInt(options.get("pages"))));
+        for (boolean virtual : runs) {
+            run(virtual, options, pdf);
+        }
+        System.exit(0);
+    }
+
+    private static void run(boolean virtual, Map<String, String> options, byte[] pdf) throws Exception {
+        int concurrency = Integer.parseInt(options.get("concurrency"));
+        try (GroqStubServer groq = new GroqStubServer(Long.parseLong(options.get("groqLatencyMillis")))) {
+            SpringApplication application = new SpringApplication(DocumentSummarizerApplication.class);
+            application.setDefaultProperties(Map.of(
+                    "server.port", "0",
+                    "spring.threads.virtual.enabled", String.valueOf(virtual),
+                    "groq.api.key", "loadtest",
+                    "groq.base-url", groq.baseUrl(),
+                    "groq.pool.max-connections", String.valueOf(concurrency),
+                    "groq.rate-limit.requests-per-minute", "1000000",
+                    "groq.rate-limit.tokens-per-minute", "1000000000",
+                    "extraction-cache.enabled", "false",
+                    "search.index.path", Files.createTempDirectory("briefify-loadtest-index").toString(),
+                    "de.flapdoodle.mongodb.embedded.version", "7.0.14"));
+            try (ConfigurableApplicationContext context = application.run()) {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                HttpClient client = HttpClient.newBuilder()
+                        .version(HttpClient.Version.HTTP_1_1)
+                        .connectTimeout(Duration.ofSeconds(10))
+                        .build();
+                String baseUrl = "http://localhost:" + port;
+                String token = login(client, baseUrl);
+
+                drive(client, baseUrl, token, pdf, Math.min(concurrency, 20), Integer.parseInt(options.get("warmup")));
+                Result result = drive(client, baseUrl, token, pdf, concurrency, Integer.parseInt(options.get("requests")));
+                System.out.printf("%n== %s threads, %d in flight, Groq latency %s ms ==%n%s%n",
+                        virtual ? "virtual" : "platform", concurrency, options.get("groqLatencyMillis"), result);
+            }
+        }
+    }
+
+    private static String login(HttpClient client, String baseUrl) throws IOException, InterruptedException {
+        String credentials = "{\"username\":\"loadtest-" + UUID.randomUUID() + "\",\"password\":\"loadtest-password\"}";
+        for (String path : List.of("/api/auth/register", "/api/auth/login")) {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(credentials))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException(path + " answered " + response.statusCode() + ": " + response.body());
+            }
+            Matcher matcher = TOKEN.matcher(response.body());
+            if (matcher.find()) {
+                return matcher.group(1);
+            }
+        }
+        throw new IllegalStateException("login returned no token");
+    }
+
+    private static Result drive(HttpClient client, String baseUrl, String token, byte[] pdf,
+                                int concurrency, int requests) throws InterruptedException {
+        String boundary = "loadtest" + UUID.randomUUID().toString().replace("-", "");
+        byte[] body = multipart(boundary, pdf);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/documents/upload"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .timeout(Duration.ofMinutes(5))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+
+        long[] latencies = new long[requests];
+        Map<String, AtomicInteger> statuses = new ConcurrentHashMap<>();
+        Semaphore inFlight = new Semaphore(concurrency);
+        ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+        long start = System.nanoTime();
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                int index = i;
+                inFlight.acquire();
+                callers.execute(() -> {
+                    long sent = System.nanoTime();
+                    String status;
+                    try {
+                        status = String.valueOf(client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+                    } catch (Exception e) {
+                        status = e.getClass().getSimpleName();
+                    } finally {
+                        inFlight.release();
+                    }
+                    latencies[index] = System.nanoTime() - sent;
+                    statuses.computeIfAbsent(status, s -> new AtomicInteger()).incrementAndGet();
+                });
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        return new Result(requests, elapsed, latencies, new TreeMap<>(statuses),
+                ManagementFactory.getThreadMXBean().getPeakThreadCount());
+    }
+
+    private static byte[] multipart(String boundary, byte[] pdf) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(pdf.length + 256);
+        out.writeBytes(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"loadtest.pdf\"\r\n"
+                + "Content-Type: application/pdf\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        out.writeBytes(pdf);
+        out.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    private record Result(int requests, long elapsedNanos, long[] sortedLatencies, Map<String, AtomicInteger> statuses,
+                          int peakPlatformThreads) {
+
+        @Override
+        public String toString() {
+            double seconds = elapsedNanos / 1e9;
+            return String.format("requests %d in %.1f s, %.1f req/s%nlatency ms p50 %d, p95 %d, p99 %d, max %d%n"
+                            + "statuses %s, peak platform threads %d",
+                    requests, seconds, requests / seconds,
+                    percentile(0.50), percentile(0.95), percentile(0.99), percentile(1.0),
+                    statuses, peakPlatformThreads);
+        }
+
+        private long percentile(double p) {
+            int index = (int) Math.ceil(p * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / 1_000_000;
+        }
+    }
+}
@@ -4,13 +4,25 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
 
+import java.util.Map;
+
 
 @SpringBootApplication
 @EnableMongoRepositories(basePackages = "com.ram.project.documentsummerizer.repository")
 public class DocumentSummarizerApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(DocumentSummarizerApplication.class, args);
+        SpringApplication application = new SpringApplication(DocumentSummarizerApplication.class);
+        // application.properties is not in the repo, so defaults the app relies on live here
+        // (anything set in application.properties or the environment still wins)
+        application.setDefaultProperties(Map.of(
+                "management.endpoints.web.exposure.include", "health,info,metrics,prometheus",
+                "management.metrics.tags.application", "briefify",
+                // uploads go straight to disk instead of being held in memory, within these limits
+                "spring.servlet.multipart.file-size-threshold", "0B",
+                "spring.servlet.multipart.max-file-size", "100MB",
+                "spring.servlet.multipart.max-request-size", "1GB"));
+        application.run(args);
     }
 
 }
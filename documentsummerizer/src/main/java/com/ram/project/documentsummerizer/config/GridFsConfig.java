@@ -0,0 +1,24 @@
+package com.ram.project.documentsummerizer.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+
+@Configuration
+public class GridFsConfig {
+
+    // extracted text lives outside the documents collection, compressed, so a large OCR result
+    // neither hits the 16 MB BSON limit nor gets dragged along by every document read
+    @Bean(name = "documentTextGridFs")
+    public GridFsTemplate documentTextGridFs(MongoDatabaseFactory mongoDatabaseFactory, MongoConverter mongoConverter) {
+        return new GridFsTemplate(mongoDatabaseFactory, mongoConverter, "document_texts");
+    }
+
+    // async uploads wait here for whichever node claims their job, so they survive a restart of the node that took them
+    @Bean(name = "uploadGridFs")
+    public GridFsTemplate uploadGridFs(MongoDatabaseFactory mongoDatabaseFactory, MongoConverter mongoConverter) {
+        return new GridFsTemplate(mongoDatabaseFactory, mongoConverter, "uploads");
+    }
+}
@@ -0,0 +1,95 @@
+package com.ram.project.documentsummerizer.config;
+
+import com.ram.project.documentsummerizer.model.BatchUpload;
+import com.ram.project.documentsummerizer.model.Document;
+import com.ram.project.documentsummerizer.model.DocumentDeletion;
+import com.ram.project.documentsummerizer.model.DocumentJob;
+import com.ram.project.documentsummerizer.model.ExtractionCacheEntry;
+import com.ram.project.documentsummerizer.model.PageCheckpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Creates the indexes the services rely on. auto-index-creation is off in Spring Boot, and this runs
+// on its own thread so startup does not wait on (or fail because of) an unreachable cluster.
+@Component
+public class MongoIndexInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${extraction-cache.persistent.ttl:30d}")
+    private Duration extractionCacheTtl;
+
+    // checkpoints of a document nobody reprocesses are not worth keeping forever
+    @Value("${documents.checkpoints.ttl:30d}")
+    private Duration checkpointTtl;
+
+    @Value("${search.index.tombstone-ttl:7d}")
+    private Duration tombstoneTtl;
+
+    public MongoIndexInitializer(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Thread thread = new Thread(this::ensureIndexes, "mongo-index-init");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void ensureIndexes() {
+        try {
+            // history listing: keyset pagination over (createdAt, _id) per user
+            mongoTemplate.indexOps(Document.class).createIndex(new Index()
+                    .on("userId", Sort.Direction.ASC)
+                    .on("createdAt", Sort.Direction.DESC)
+                    .on("_id", Sort.Direction.DESC)
+                    .named("userId_createdAt"));
+            // search index sync on every node: saves by updatedAt, deletions by their tombstones
+            mongoTemplate.indexOps(Document.class)
+                    .createIndex(new Index().on("updatedAt", Sort.Direction.ASC).named("updatedAt"));
+            mongoTemplate.indexOps(DocumentDeletion.class)
+                    .createIndex(new Index().on("deletedAt", Sort.Direction.ASC).expire(tombstoneTtl));
+            mongoTemplate.indexOps(ExtractionCacheEntry.class)
+                    .createIndex(new Index().on("createdAt", Sort.Direction.ASC).expire(extractionCacheTtl));
+            // job queue: claimable jobs by status, plus the TTL that drops finished ones
+            mongoTemplate.indexOps(DocumentJob.class).createIndex(new Index()
+                    .on("status", Sort.Direction.ASC)
+                    .on("nextAttemptAt", Sort.Direction.ASC)
+                    .named("status_nextAttemptAt"));
+            mongoTemplate.indexOps(DocumentJob.class).createIndex(new Index()
+                    .on("status", Sort.Direction.ASC)
+                    .on("leaseExpiresAt", Sort.Direction.ASC)
+                    .named("status_leaseExpiresAt"));
+            mongoTemplate.indexOps(DocumentJob.class).createIndex(new Index()
+                    .on("userId", Sort.Direction.ASC)
+                    .on("status", Sort.Direction.ASC)
+                    .named("userId_status"));
+            mongoTemplate.indexOps(DocumentJob.class)
+                    .createIndex(new Index().on("expiresAt", Sort.Direction.ASC).expire(Duration.ZERO));
+            // batch manifests: leases that ran out, plus the TTL that drops finished ones
+            mongoTemplate.indexOps(BatchUpload.class)
+                    .createIndex(new Index().on("leaseExpiresAt", Sort.Direction.ASC).named("leaseExpiresAt"));
+            mongoTemplate.indexOps(BatchUpload.class)
+                    .createIndex(new Index().on("expiresAt", Sort.Direction.ASC).expire(Duration.ZERO));
+            mongoTemplate.indexOps(PageCheckpoint.class)
+                    .createIndex(new Index().on("documentId", Sort.Direction.ASC).named("documentId"));
+            mongoTemplate.indexOps(PageCheckpoint.class)
+                    .createIndex(new Index().on("createdAt", Sort.Direction.ASC).expire(checkpointTtl));
+            logger.info("MongoDB indexes are in place.");
+        } catch (Exception e) {
+            logger.warn("Could not create MongoDB indexes: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.ram.project.documentsummerizer.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class PipelineConfig {
+
+    // Workers for the job-based upload mode. The queue is bounded and the pool rejects
+    // once it is full, so a burst of uploads gets a 503 instead of piling up in memory.
+    // With spring.threads.virtual.enabled (which also moves Tomcat onto virtual threads) the workers are
+    // virtual too and there can be many more of them, since they mostly wait on Groq and Mongo. OCR, page
+    // rendering and password hashing keep their own bounded platform pools either way.
+    @Bean(name = "documentPipelineExecutor")
+    public ThreadPoolTaskExecutor documentPipelineExecutor(
+            @Value("${documents.pipeline.workers:4}") int workers,
+            @Value("${documents.pipeline.queue-capacity:50}") int queueCapacity,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${documents.pipeline.virtual-workers:200}") int virtualWorkers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        int poolSize = virtualThreads ? virtualWorkers : workers;
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setVirtualThreads(virtualThreads);
+        executor.setThreadNamePrefix("doc-pipeline-");
+        return executor;
+    }
+}
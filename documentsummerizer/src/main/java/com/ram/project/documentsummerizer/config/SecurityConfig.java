@@ -4,6 +4,8 @@ package com.ram.project.documentsummerizer.config;
 import com.ram.project.documentsummerizer.security.JwtAuthFilter;
 import com.ram.project.documentsummerizer.service.AuthService;
 import com.ram.project.documentsummerizer.service.CustomUserDetailsService;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.HttpMethod;
 import org.springframework.context.annotation.Configuration;
@@ -18,6 +20,7 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
@@ -43,9 +46,24 @@ public class SecurityConfig {
         this.authService = authService;
     }
 
+    // work factor is configurable, every +1 doubles the cost of a hash
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.bcrypt.strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
+    }
+
+    // Register and login hash on this pool, not on servlet threads. Small and with a bounded queue,
+    // so a login spike is rejected with a 429 instead of starving the document endpoints.
+    @Bean(name = "passwordHashingExecutor")
+    public ThreadPoolTaskExecutor passwordHashingExecutor(
+            @Value("${security.password-hashing.threads:2}") int threads,
+            @Value("${security.password-hashing.queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hashing-");
+        return executor;
     }
 
   
@@ -55,10 +73,10 @@ public class SecurityConfig {
     }
 
     // DaoAuthenticationProvider bean for CustomUserDetailsService and PasswordEncoder
-    private DaoAuthenticationProvider daoAuthenticationProvider() {
+    private DaoAuthenticationProvider daoAuthenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
         provider.setUserDetailsService(userDetailsService);
-        provider.setPasswordEncoder(passwordEncoder()); // Use the passwordEncoder bean
+        provider.setPasswordEncoder(passwordEncoder); // Use the passwordEncoder bean
         return provider;
     }
 
@@ -79,7 +97,8 @@ public class SecurityConfig {
   
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http, 
-                                                   AuthenticationManager authenticationManager 
+                                                   AuthenticationManager authenticationManager,
+                                                   PasswordEncoder passwordEncoder
                                                    ) throws Exception {
 
         authService.setAuthenticationManager(authenticationManager);
@@ -88,7 +107,11 @@ public class SecurityConfig {
             .csrf(AbstractHttpConfigurer::disable)
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
             .authorizeHttpRequests(authorize -> authorize
+                // streamed responses (SSE) finish on an ASYNC dispatch of a request that was already authorized
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
+                // health checks and the Prometheus scraper come without a JWT
+                .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll() 
                 .requestMatchers("/api/documents/upload").authenticated()
                 .requestMatchers("/api/documents/user").authenticated()
@@ -96,7 +119,7 @@ public class SecurityConfig {
                 .anyRequest().authenticated()
             )
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-            .authenticationProvider(daoAuthenticationProvider())
+            .authenticationProvider(daoAuthenticationProvider(passwordEncoder))
             .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
@@ -1,9 +1,14 @@
 package com.ram.project.documentsummerizer.controller;
-import com.ram.project.documentsummerizer.model.User;
 import com.ram.project.documentsummerizer.service.AuthService;
+import com.ram.project.documentsummerizer.service.PasswordHashingService;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -11,29 +16,43 @@ import java.util.Map;
 public class AuthController {
 
     private final AuthService authService;
+    private final PasswordHashingService passwordHashingService;
 
-    public AuthController(AuthService authService) {
+    public AuthController(AuthService authService, PasswordHashingService passwordHashingService) {
         this.authService = authService;
+        this.passwordHashingService = passwordHashingService;
     }
 
+    // BCrypt runs on the password hashing pool, the servlet thread is released while it works
     @PostMapping("/register")
-    public ResponseEntity<String> registerUser(@RequestBody Map<String, String> payload) {
+    public CompletableFuture<ResponseEntity<String>> registerUser(@RequestBody Map<String, String> payload) {
+        String username = payload.get("username");
+        String password = payload.get("password");
         try {
-            String username = payload.get("username");
-            String password = payload.get("password");
-            User registeredUser = authService.registerUser(username, password);
-            return ResponseEntity.ok("User registered successfully: " + registeredUser.getUsername());
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
+            return passwordHashingService.submit("register", () -> authService.registerUser(username, password))
+                    .thenApply(registeredUser -> ResponseEntity.ok("User registered successfully: " + registeredUser.getUsername()))
+                    .exceptionally(e -> {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        return ResponseEntity.badRequest().body(cause.getMessage());
+                    });
+        } catch (TaskRejectedException e) {
+            return CompletableFuture.completedFuture(tooManyRequests());
         }
     }
 
     @PostMapping("/login")
-    public ResponseEntity<Map<String, String>> authenticateUser(@RequestBody Map<String, String> payload) {
+    public CompletableFuture<ResponseEntity<Map<String, String>>> authenticateUser(@RequestBody Map<String, String> payload) {
         String username = payload.get("username");
         String password = payload.get("password");
-        String jwt = authService.authenticateUserAndGenerateToken(username, password);
-        Map<String, String> response = Map.of("token", jwt);
-        return ResponseEntity.ok(response);
+        try {
+            return passwordHashingService.submit("login", () -> authService.authenticateUserAndGenerateToken(username, password))
+                    .thenApply(jwt -> ResponseEntity.ok(Map.of("token", jwt)));
+        } catch (TaskRejectedException e) {
+            return CompletableFuture.completedFuture(tooManyRequests());
+        }
+    }
+
+    private static <T> ResponseEntity<T> tooManyRequests() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "5").build();
     }
 }
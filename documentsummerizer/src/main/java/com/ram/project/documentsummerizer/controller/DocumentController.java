@@ -1,22 +1,40 @@
 
 package com.ram.project.documentsummerizer.controller;
 
+import com.ram.project.documentsummerizer.model.BatchUpload;
 import com.ram.project.documentsummerizer.model.Document;
+import com.ram.project.documentsummerizer.model.DocumentJob;
+import com.ram.project.documentsummerizer.model.DocumentSearchResult;
+import com.ram.project.documentsummerizer.model.DocumentSummaryPage;
+import com.ram.project.documentsummerizer.service.BatchUploadService;
+import com.ram.project.documentsummerizer.service.DocumentJobService;
+import com.ram.project.documentsummerizer.service.DocumentResponseCache;
 import com.ram.project.documentsummerizer.service.DocumentService;
+import com.ram.project.documentsummerizer.service.UploadRejectedException;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.net.URI;
 import net.sourceforge.tess4j.TesseractException;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional; 
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import com.ram.project.documentsummerizer.model.User;
-import org.springframework.security.core.userdetails.UserDetails;
-import com.ram.project.documentsummerizer.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 
 @RestController
@@ -24,24 +42,46 @@ import org.slf4j.LoggerFactory;
 public class DocumentController {
 
     private static final Logger logger = LoggerFactory.getLogger(DocumentController.class);
+    private static final int MAX_PAGE_SIZE = 100;
     private final DocumentService documentService;
-    private final UserRepository userRepository;
+    private final DocumentJobService documentJobService;
+    private final BatchUploadService batchUploadService;
+    private final DocumentResponseCache documentResponseCache;
 
-    public DocumentController(DocumentService documentService, UserRepository userRepository) {
+    public DocumentController(DocumentService documentService, DocumentJobService documentJobService,
+                              BatchUploadService batchUploadService, DocumentResponseCache documentResponseCache) {
         this.documentService = documentService;
-        this.userRepository = userRepository;
+        this.documentJobService = documentJobService;
+        this.batchUploadService = batchUploadService;
+        this.documentResponseCache = documentResponseCache;
+    }
+
+    // the JWT filter puts a User built from the token claims on the context, so no lookup is needed here
+    private Optional<User> currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated() && authentication.getPrincipal() instanceof User user) {
+            return Optional.of(user);
+        }
+        return Optional.empty();
     }
 
     @PostMapping("/upload")
-    public ResponseEntity<String> uploadDocument(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> uploadDocument(@RequestParam("file") MultipartFile file,
+                                            @RequestParam(value = "async", defaultValue = "false") boolean async,
+                                            @RequestParam(value = "summarize", defaultValue = "true") boolean summarize) {
         if (file.isEmpty()) {
             return ResponseEntity.badRequest().body("Error: No file selected.");
         }
+        if (async) {
+            return submitDocumentJob(file, summarize);
+        }
         try {
-            String responseMessage = documentService.processAndSaveDocument(file);
+            String responseMessage = documentService.processAndSaveDocument(file, summarize);
             return ResponseEntity.ok(responseMessage);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body("Error: File validation failed - " + e.getMessage());
+        } catch (UploadRejectedException e) {
+            return tooManyRequests(e);
         } catch (IOException e) {
             return ResponseEntity.status(500).body("Error: File I/O issue - " + e.getMessage());
         } catch (TesseractException e) {
@@ -51,70 +91,257 @@ public class DocumentController {
         }
     }
 
-    @GetMapping("/user")
-    public ResponseEntity<List<Document>> getUserDocuments() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return ResponseEntity.status(401).build();
+    // job mode: hand the file to the pipeline workers and answer 202 straight away
+    private ResponseEntity<?> submitDocumentJob(MultipartFile file, boolean summarize) {
+        try {
+            DocumentJob job = documentJobService.submit(file, documentService.resolveCurrentUserId(), summarize);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/documents/jobs/" + job.getId()))
+                    .body(Map.of("jobId", job.getId(), "status", job.getStatus()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error: File validation failed - " + e.getMessage());
+        } catch (UploadRejectedException e) {
+            return tooManyRequests(e);
+        } catch (TaskRejectedException e) {
+            logger.warn("Document pipeline is full, rejecting upload of {}", file.getOriginalFilename());
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "30")
+                    .body("Error: Too many documents are being processed. Please retry shortly.");
+        } catch (IOException e) {
+            return ResponseEntity.status(500).body("Error: File I/O issue - " + e.getMessage());
         }
-        Object principal = authentication.getPrincipal();
-        String username = null;
-        if (principal instanceof UserDetails) {
-            username = ((UserDetails) principal).getUsername();
-        } else if (principal instanceof String) {
-            username = (String) principal;
+    }
+
+    private ResponseEntity<String> tooManyRequests(UploadRejectedException e) {
+        logger.info("Upload turned away by admission control: {}", e.getMessage());
+        return ResponseEntity.status(429).header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body("Error: " + e.getMessage());
+    }
+
+    // Batch mode: either many "files" parts or one ZIP as "archive". Always async, poll the Location for the
+    // per-file manifest; a synchronous answer for 200 PDFs would outlive any sane request timeout.
+    @PostMapping("/upload/batch")
+    public ResponseEntity<?> uploadBatch(@RequestParam(value = "files", required = false) List<MultipartFile> files,
+                                         @RequestParam(value = "archive", required = false) MultipartFile archive,
+                                         @RequestParam(value = "summarize", defaultValue = "true") boolean summarize) {
+        boolean hasFiles = files != null && !files.isEmpty();
+        boolean hasArchive = archive != null && !archive.isEmpty();
+        if (hasFiles == hasArchive) {
+            return ResponseEntity.badRequest().body("Error: Send either files or a single ZIP archive.");
         }
-        if (username == null) {
-            return ResponseEntity.status(401).build();
+        String userId = documentService.resolveCurrentUserId();
+        try {
+            BatchUpload batch = hasArchive
+                    ? batchUploadService.submitArchive(archive, userId, summarize)
+                    : batchUploadService.submitFiles(files, userId, summarize);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/documents/batches/" + batch.getId()))
+                    .body(batch);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Error: Batch validation failed - " + e.getMessage());
+        } catch (UploadRejectedException e) {
+            return tooManyRequests(e);
+        } catch (TaskRejectedException e) {
+            logger.warn("Document pipeline is full, rejecting batch upload");
+            return ResponseEntity.status(503).header(HttpHeaders.RETRY_AFTER, "30")
+                    .body("Error: Too many documents are being processed. Please retry shortly.");
+        } catch (IOException e) {
+            return ResponseEntity.status(500).body("Error: File I/O issue - " + e.getMessage());
         }
-        
-        Optional<User> userOpt = userRepository.findByUsername(username);
-        if (userOpt.isEmpty()) {
-            return ResponseEntity.status(401).build();
+    }
+
+    @GetMapping("/batches/{batchId}")
+    public ResponseEntity<BatchUpload> getBatchStatus(@PathVariable String batchId) {
+        Optional<BatchUpload> batch = batchUploadService.getBatch(batchId, documentService.resolveCurrentUserId());
+        return batch.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<DocumentJob> getJobStatus(@PathVariable String jobId) {
+        Optional<DocumentJob> job = documentJobService.getJob(jobId, documentService.resolveCurrentUserId());
+        return job.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Server-Sent Events: "token" events carry summary text as the model generates it, "done" carries the
+    // document id once the summary is saved. Documents that already have a summary get it in one event.
+    @GetMapping(value = "/{id}/summary/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<String>>> streamSummary(@PathVariable String id) {
+        String userId = documentService.resolveCurrentUserId();
+        Optional<Document> docOptional = documentService.getDocumentById(id);
+        if (docOptional.isEmpty()) {
+            return ResponseEntity.notFound().build();
         }
-        User currentUser = userOpt.get();
-        List<Document> userDocuments = documentService.getUserDocuments(currentUser.getId());
-        return ResponseEntity.ok(userDocuments);
+        Document document = docOptional.get();
+        if (!document.getUserId().equals(userId)) {
+            logger.warn("User id {} is not authorized to stream summary of document {}", userId, id);
+            return ResponseEntity.status(403).build();
+        }
+
+        Flux<String> summary = document.getSummary() != null
+                ? Flux.just(document.getSummary())
+                : documentService.streamAndSaveSummary(document);
+        Flux<ServerSentEvent<String>> events = summary
+                .map(token -> ServerSentEvent.builder(token).event("token").build())
+                .concatWith(Mono.just(ServerSentEvent.builder(id).event("done").build()))
+                .onErrorResume(e -> {
+                    logger.error("Summary stream for document {} failed: {}", id, e.getMessage());
+                    return Mono.just(ServerSentEvent.builder("Summarization failed.").event("error").build());
+                });
+        return ResponseEntity.ok(events);
     }
 
-   
-    @GetMapping("/{id}")
-    public ResponseEntity<Document> getDocumentById(@PathVariable String id) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            logger.warn("Unauthenticated access attempt to document {}", id);
+    @GetMapping("/user")
+    public ResponseEntity<DocumentSummaryPage> getUserDocuments(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<User> currentUser = currentUser();
+        if (currentUser.isEmpty()) {
             return ResponseEntity.status(401).build();
         }
-        Object principal = authentication.getPrincipal();
-        String username = null;
-        if (principal instanceof org.springframework.security.core.userdetails.UserDetails) {
-            username = ((org.springframework.security.core.userdetails.UserDetails) principal).getUsername();
-        } else if (principal instanceof String) {
-            username = (String) principal;
+        try {
+            return ResponseEntity.ok(documentService.getUserDocuments(currentUser.get().getId(), cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
-        if (username == null) {
-            logger.warn("No username found in principal for document {}", id);
+    }
+
+   
+    // ranked full-text search over the caller's own documents (file name, summary, extracted text)
+    @GetMapping("/search")
+    public ResponseEntity<DocumentSearchResult> searchDocuments(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        if (query.isBlank() || limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<User> currentUser = currentUser();
+        if (currentUser.isEmpty()) {
             return ResponseEntity.status(401).build();
         }
-        
-        Optional<User> userOpt = userRepository.findByUsername(username);
+        try {
+            return ResponseEntity.ok(documentService.searchUserDocuments(currentUser.get().getId(), query, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IOException e) {
+            logger.error("Search failed for user {}: {}", currentUser.get().getId(), e.getMessage());
+            return ResponseEntity.status(500).build();
+        }
+    }
+
+    // Served from DocumentResponseCache when possible, so a repeat view touches neither Mongo nor GridFS.
+    // With the ETag on the ResponseEntity Spring answers a matching If-None-Match with 304 and no body;
+    // no-cache lets clients keep the response but has them revalidate, since a summary or reprocess can change it.
+    @GetMapping("/{id}")
+    public ResponseEntity<byte[]> getDocumentById(@PathVariable String id,
+                                                  @RequestParam(value = "includeText", defaultValue = "true") boolean includeText) {
+        Optional<User> userOpt = currentUser();
         if (userOpt.isEmpty()) {
-            logger.warn("User {} not found in DB for document {}", username, id);
+            logger.warn("Unauthenticated access attempt to document {}", id);
             return ResponseEntity.status(401).build();
         }
         User currentUser = userOpt.get();
+        String username = currentUser.getUsername();
         logger.info("User {} (id: {}) is requesting document {}", username, currentUser.getId(), id);
+        Optional<DocumentResponseCache.CachedResponse> cached = documentResponseCache.get(id, includeText);
+        DocumentResponseCache.CachedResponse response;
+        if (cached.isPresent()) {
+            response = cached.get();
+        } else {
+            long version = documentResponseCache.version();
+            Optional<Document> docOptional = documentService.getDocumentById(id);
+            if (docOptional.isEmpty()) {
+                logger.warn("Document {} not found", id);
+                return ResponseEntity.notFound().build();
+            }
+            Document document = docOptional.get();
+            logger.info("Document {} found, owned by userId {}", id, document.getUserId());
+            if (!document.getUserId().equals(currentUser.getId())) {
+                logger.warn("User {} (id: {}) is not authorized to access document {} (owner: {})", username, currentUser.getId(), id, document.getUserId());
+                return ResponseEntity.status(403).build();
+            }
+            try {
+                if (includeText) {
+                    document.setExtractedText(documentService.loadExtractedText(document));
+                }
+                response = documentResponseCache.put(document, includeText, version);
+            } catch (IOException e) {
+                logger.error("Could not load extracted text of document {}: {}", id, e.getMessage());
+                return ResponseEntity.status(500).build();
+            }
+        }
+        if (!response.userId().equals(currentUser.getId())) {
+            logger.warn("User {} (id: {}) is not authorized to access document {} (owner: {})", username, currentUser.getId(), id, response.userId());
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(response.etag())
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(response.json());
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteDocument(@PathVariable String id) {
+        String userId = documentService.resolveCurrentUserId();
+        Optional<Document> docOptional = documentService.getDocumentById(id);
+        if (docOptional.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Document document = docOptional.get();
+        if (!document.getUserId().equals(userId)) {
+            logger.warn("User id {} is not authorized to delete document {}", userId, id);
+            return ResponseEntity.status(403).build();
+        }
+        documentService.deleteDocument(document);
+        return ResponseEntity.noContent().build();
+    }
+
+    // Finishes the stages an earlier run left failed or pending: OCR resumes from the checkpointed pages of
+    // the kept PDF, a missing summary is generated from the stored text. 409 when there is nothing to do.
+    @PostMapping("/{id}/reprocess")
+    public ResponseEntity<String> reprocessDocument(@PathVariable String id) {
+        String userId = documentService.resolveCurrentUserId();
+        Optional<Document> docOptional = documentService.getDocumentById(id);
+        if (docOptional.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Document document = docOptional.get();
+        if (!document.getUserId().equals(userId)) {
+            logger.warn("User id {} is not authorized to reprocess document {}", userId, id);
+            return ResponseEntity.status(403).build();
+        }
+        try {
+            return ResponseEntity.ok(documentService.reprocessDocument(document));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body("Error: " + e.getMessage());
+        } catch (UploadRejectedException e) {
+            return tooManyRequests(e);
+        } catch (IOException e) {
+            logger.error("Reprocessing document {} failed: {}", id, e.getMessage());
+            return ResponseEntity.status(500).body("Error: File I/O issue - " + e.getMessage());
+        }
+    }
+
+    // the extracted text on its own, inflated from GridFS while it is written out
+    @GetMapping(value = "/{id}/text", produces = "text/plain;charset=UTF-8")
+    public ResponseEntity<StreamingResponseBody> getExtractedText(@PathVariable String id) {
+        String userId = documentService.resolveCurrentUserId();
         Optional<Document> docOptional = documentService.getDocumentById(id);
         if (docOptional.isEmpty()) {
-            logger.warn("Document {} not found", id);
             return ResponseEntity.notFound().build();
         }
         Document document = docOptional.get();
-        logger.info("Document {} found, owned by userId {}", id, document.getUserId());
-        if (!document.getUserId().equals(currentUser.getId())) {
-            logger.warn("User {} (id: {}) is not authorized to access document {} (owner: {})", username, currentUser.getId(), id, document.getUserId());
+        if (!document.getUserId().equals(userId)) {
+            logger.warn("User id {} is not authorized to read text of document {}", userId, id);
             return ResponseEntity.status(403).build();
         }
-        return ResponseEntity.ok(document);
+        StreamingResponseBody body = out -> {
+            try (InputStream in = documentService.openExtractedText(document)) {
+                in.transferTo(out);
+            }
+        };
+        return ResponseEntity.ok().contentType(new MediaType("text", "plain", StandardCharsets.UTF_8)).body(body);
     }
 }
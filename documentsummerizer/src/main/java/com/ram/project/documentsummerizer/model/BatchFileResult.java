@@ -0,0 +1,39 @@
+package com.ram.project.documentsummerizer.model;
+
+// One line of a batch manifest. Guarded by the owning BatchUpload's lock.
+public class BatchFileResult {
+    private String fileName;
+    private JobStatus status = JobStatus.QUEUED;
+    private String documentId;
+    private String message;
+    private String error;
+
+    BatchFileResult() {
+    }
+
+    public BatchFileResult(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getFileName() { return fileName; }
+    public JobStatus getStatus() { return status; }
+    public String getDocumentId() { return documentId; }
+    public String getMessage() { return message; }
+    public String getError() { return error; }
+
+    BatchFileResult copy() {
+        BatchFileResult copy = new BatchFileResult(fileName);
+        copy.status = status;
+        copy.documentId = documentId;
+        copy.message = message;
+        copy.error = error;
+        return copy;
+    }
+
+    void set(JobStatus status, String documentId, String message, String error) {
+        this.status = status;
+        this.documentId = documentId;
+        this.message = message;
+        this.error = error;
+    }
+}
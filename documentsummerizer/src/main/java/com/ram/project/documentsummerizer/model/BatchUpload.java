@@ -0,0 +1,122 @@
+package com.ram.project.documentsummerizer.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.annotation.Id;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// A multi-file upload and its per-file manifest. Persisted in batch_uploads so any node can report on it;
+// the node running the batch holds a lease (owner, leaseExpiresAt) and writes each file's status there.
+// Batch workers update it and request threads read it, so every accessor is synchronized, same as DocumentJob.
+@org.springframework.data.mongodb.core.mapping.Document(collection = "batch_uploads")
+public class BatchUpload {
+    @Id
+    private String id;
+    private String userId;
+    private LocalDateTime createdAt;
+    private List<BatchFileResult> files = new ArrayList<>();
+    private LocalDateTime updatedAt;
+
+    // lease bookkeeping, Instants like DocumentJob's
+    private String owner;
+    private Instant leaseExpiresAt;
+    private Instant expiresAt;
+
+    BatchUpload() {
+    }
+
+    public BatchUpload(String id, String userId, List<String> fileNames) {
+        this.id = id;
+        this.userId = userId;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = createdAt;
+        fileNames.forEach(name -> files.add(new BatchFileResult(name)));
+    }
+
+    public String getId() { return id; }
+    public String getUserId() { return userId; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public synchronized LocalDateTime getUpdatedAt() { return updatedAt; }
+
+    @JsonIgnore public synchronized String getOwner() { return owner; }
+
+    public synchronized List<BatchFileResult> getFiles() {
+        return files.stream().map(BatchFileResult::copy).toList();
+    }
+
+    public synchronized BatchFileResult getFile(int index) {
+        return files.get(index).copy();
+    }
+
+    public synchronized JobStatus getStatus() {
+        if (isFinished()) {
+            return JobStatus.COMPLETED;
+        }
+        return files.stream().anyMatch(file -> file.getStatus() != JobStatus.QUEUED) ? JobStatus.RUNNING : JobStatus.QUEUED;
+    }
+
+    public synchronized int getCompleted() {
+        return count(JobStatus.COMPLETED);
+    }
+
+    public synchronized int getFailed() {
+        return count(JobStatus.FAILED);
+    }
+
+    public synchronized boolean isFinished() {
+        return files.stream().allMatch(file -> file.getStatus() == JobStatus.COMPLETED || file.getStatus() == JobStatus.FAILED);
+    }
+
+    // past its retention; the TTL index drops it within a minute or so, until then it is treated as gone
+    @JsonIgnore
+    public synchronized boolean isExpired() {
+        return expiresAt != null && !expiresAt.isAfter(Instant.now());
+    }
+
+    public synchronized void lease(String owner, Instant leaseExpiresAt) {
+        this.owner = owner;
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public synchronized void markRunning(int index) {
+        files.get(index).set(JobStatus.RUNNING, null, null, null);
+        touch();
+    }
+
+    // the document id is pre-assigned before the insert, the file only completes once its flush lands
+    public synchronized void markCompleted(int index, String documentId, String message) {
+        files.get(index).set(JobStatus.COMPLETED, documentId, message, null);
+        touch();
+    }
+
+    public synchronized void markFailed(int index, String error) {
+        files.get(index).set(JobStatus.FAILED, null, null, error);
+        touch();
+    }
+
+    // files still queued or running when the batch's node went away; their spooled copies went with it
+    public synchronized void failUnfinished(String error) {
+        files.stream()
+                .filter(file -> file.getStatus() == JobStatus.QUEUED || file.getStatus() == JobStatus.RUNNING)
+                .forEach(file -> file.set(JobStatus.FAILED, null, null, error));
+        touch();
+    }
+
+    public synchronized void release(Instant expiresAt) {
+        this.owner = null;
+        this.leaseExpiresAt = null;
+        this.expiresAt = expiresAt;
+        touch();
+    }
+
+    private int count(JobStatus status) {
+        return (int) files.stream().filter(file -> file.getStatus() == status).count();
+    }
+
+    private void touch() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -2,6 +2,7 @@ package com.ram.project.documentsummerizer.model;
 
 import org.springframework.data.annotation.Id;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 
 @org.springframework.data.mongodb.core.mapping.Document(collection = "documents")
@@ -10,9 +11,25 @@ public class Document {
     private String id;
     private String userId;
     private String originalFileName;
+    // inline text only on documents saved before extracted text moved to GridFS,
+    // newer ones reference it through extractedTextId and it is filled in on read
     private String extractedText;
+    private String extractedTextId;
+    private int extractedTextLength;
     private String summary;
     private LocalDateTime createdAt;
+    // per-stage outcome, null on documents saved before these were tracked. A FAILED stage (or a summary
+    // still PENDING) is what POST /api/documents/{id}/reprocess picks up.
+    private StageStatus nativeStatus;
+    private StageStatus ocrStatus;
+    private StageStatus summaryStatus;
+    private int pageCount;
+    // original PDF in the uploads bucket, kept only while the text is incomplete
+    private String sourceFileId;
+    // set on every write, each node's search index follows the collection by it
+    private Instant updatedAt;
+    // held while a reprocess runs so a second one is turned away, runs out on its own if that node dies
+    private Instant reprocessingUntil;
 
    
     public Document() {
@@ -34,8 +51,26 @@ public class Document {
     public void setOriginalFileName(String originalFileName) { this.originalFileName = originalFileName; }
     public String getExtractedText() { return extractedText; }
     public void setExtractedText(String extractedText) { this.extractedText = extractedText; }
+    public String getExtractedTextId() { return extractedTextId; }
+    public void setExtractedTextId(String extractedTextId) { this.extractedTextId = extractedTextId; }
+    public int getExtractedTextLength() { return extractedTextLength; }
+    public void setExtractedTextLength(int extractedTextLength) { this.extractedTextLength = extractedTextLength; }
     public String getSummary() { return summary; }
     public void setSummary(String summary) { this.summary = summary; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public StageStatus getNativeStatus() { return nativeStatus; }
+    public void setNativeStatus(StageStatus nativeStatus) { this.nativeStatus = nativeStatus; }
+    public StageStatus getOcrStatus() { return ocrStatus; }
+    public void setOcrStatus(StageStatus ocrStatus) { this.ocrStatus = ocrStatus; }
+    public StageStatus getSummaryStatus() { return summaryStatus; }
+    public void setSummaryStatus(StageStatus summaryStatus) { this.summaryStatus = summaryStatus; }
+    public int getPageCount() { return pageCount; }
+    public void setPageCount(int pageCount) { this.pageCount = pageCount; }
+    public String getSourceFileId() { return sourceFileId; }
+    public void setSourceFileId(String sourceFileId) { this.sourceFileId = sourceFileId; }
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+    public Instant getReprocessingUntil() { return reprocessingUntil; }
+    public void setReprocessingUntil(Instant reprocessingUntil) { this.reprocessingUntil = reprocessingUntil; }
 }
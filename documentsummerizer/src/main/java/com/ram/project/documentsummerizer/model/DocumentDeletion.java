@@ -0,0 +1,27 @@
+package com.ram.project.documentsummerizer.model;
+
+import org.springframework.data.annotation.Id;
+
+import java.time.Instant;
+
+// Tombstone of a deleted document, so the search index on every node drops it too. Expires after
+// search.index.tombstone-ttl; a node that has been away longer than that rebuilds its index instead.
+@org.springframework.data.mongodb.core.mapping.Document(collection = "document_deletions")
+public class DocumentDeletion {
+    @Id
+    private String id;
+    private Instant deletedAt;
+
+    public DocumentDeletion() {
+    }
+
+    public DocumentDeletion(String documentId, Instant deletedAt) {
+        this.id = documentId;
+        this.deletedAt = deletedAt;
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public Instant getDeletedAt() { return deletedAt; }
+    public void setDeletedAt(Instant deletedAt) { this.deletedAt = deletedAt; }
+}
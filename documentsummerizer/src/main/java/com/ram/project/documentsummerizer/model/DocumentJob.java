@@ -0,0 +1,206 @@
+package com.ram.project.documentsummerizer.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.annotation.Id;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Upload job tracked while the pipeline works through extraction, OCR, summarization and save.
+// Persisted in document_jobs, which doubles as the work queue: a node claims a job by taking its lease and
+// keeps it by heartbeating. Updated by a pipeline worker and read by request threads, so every accessor is synchronized.
+@org.springframework.data.mongodb.core.mapping.Document(collection = "document_jobs")
+public class DocumentJob {
+    @Id
+    private String id;
+    private String userId;
+    private String originalFileName;
+    private LocalDateTime createdAt;
+    private Map<JobStage, StageProgress> stages = new EnumMap<>(JobStage.class);
+    private JobStatus status = JobStatus.QUEUED;
+    private JobStage currentStage;
+    private String documentId;
+    private String resultMessage;
+    private String error;
+    private LocalDateTime updatedAt;
+    private int attempts;
+
+    // queue bookkeeping, Instants so nodes in different time zones agree on them
+    private String uploadFileId;
+    private boolean summarize;
+    // the id the Document is saved under, fixed for every attempt so a retry upserts instead of saving a second one
+    private String targetDocumentId;
+    private String leaseOwner;
+    private Instant leaseExpiresAt;
+    private Instant heartbeatAt;
+    private Instant nextAttemptAt;
+    private Instant expiresAt;
+    // admission estimate, fast-lane jobs are claimed first and OCR-heavy ones wait while the node is saturated
+    private int estimatedPages;
+    private int estimatedOcrPages;
+    private boolean fastLane;
+
+    DocumentJob() {
+    }
+
+    public DocumentJob(String id, String userId, String originalFileName, String uploadFileId, boolean summarize,
+                       String targetDocumentId, int estimatedPages, int estimatedOcrPages, boolean fastLane) {
+        this.id = id;
+        this.userId = userId;
+        this.originalFileName = originalFileName;
+        this.uploadFileId = uploadFileId;
+        this.summarize = summarize;
+        this.targetDocumentId = targetDocumentId;
+        this.estimatedPages = estimatedPages;
+        this.estimatedOcrPages = estimatedOcrPages;
+        this.fastLane = fastLane;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = createdAt;
+        this.nextAttemptAt = Instant.now();
+        resetStages();
+    }
+
+    public String getId() { return id; }
+    public String getUserId() { return userId; }
+    public String getOriginalFileName() { return originalFileName; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public synchronized JobStatus getStatus() { return status; }
+    public synchronized JobStage getCurrentStage() { return currentStage; }
+    public synchronized String getDocumentId() { return documentId; }
+    public synchronized String getResultMessage() { return resultMessage; }
+    public synchronized String getError() { return error; }
+    public synchronized LocalDateTime getUpdatedAt() { return updatedAt; }
+    public synchronized int getAttempts() { return attempts; }
+
+    @JsonIgnore public String getUploadFileId() { return uploadFileId; }
+    @JsonIgnore public boolean isSummarize() { return summarize; }
+    @JsonIgnore public synchronized String getTargetDocumentId() { return targetDocumentId; }
+    @JsonIgnore public synchronized String getLeaseOwner() { return leaseOwner; }
+    @JsonIgnore public int getEstimatedPages() { return estimatedPages; }
+    @JsonIgnore public int getEstimatedOcrPages() { return estimatedOcrPages; }
+    @JsonIgnore public boolean isFastLane() { return fastLane; }
+
+    public synchronized Map<JobStage, StageProgress> getStages() {
+        Map<JobStage, StageProgress> copy = new LinkedHashMap<>();
+        stages.forEach((stage, progress) -> copy.put(stage, progress.copy()));
+        return copy;
+    }
+
+    @JsonIgnore
+    public synchronized boolean isFinished() {
+        return status == JobStatus.COMPLETED || status == JobStatus.FAILED;
+    }
+
+    // a claimed job starts over, stages left RUNNING by an attempt that died with its node included
+    public synchronized void markRunning() {
+        status = JobStatus.RUNNING;
+        currentStage = null;
+        resetStages();
+        touch();
+    }
+
+    // jobs queued before the id was pinned at submit get theirs on the first attempt that sees them
+    public synchronized void assignTargetDocumentId(String targetDocumentId) {
+        this.targetDocumentId = targetDocumentId;
+    }
+
+    public synchronized void extendLease(Instant leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+        this.heartbeatAt = Instant.now();
+    }
+
+    public synchronized void stageStarted(JobStage stage) {
+        currentStage = stage;
+        StageProgress progress = stages.get(stage);
+        progress.status = StageStatus.RUNNING;
+        progress.startedAt = LocalDateTime.now();
+        touch();
+    }
+
+    public synchronized void stageProgress(JobStage stage, int completed, int total) {
+        StageProgress progress = stages.get(stage);
+        progress.completed = completed;
+        progress.total = total;
+        touch();
+    }
+
+    public synchronized void stageFinished(JobStage stage, StageStatus stageStatus) {
+        StageProgress progress = stages.get(stage);
+        progress.status = stageStatus;
+        progress.finishedAt = LocalDateTime.now();
+        touch();
+    }
+
+    public synchronized void documentSaved(String documentId) {
+        this.documentId = documentId;
+        touch();
+    }
+
+    public synchronized void complete(String resultMessage, Instant expiresAt) {
+        this.status = JobStatus.COMPLETED;
+        this.currentStage = null;
+        this.resultMessage = resultMessage;
+        this.error = null;
+        release(expiresAt);
+    }
+
+    public synchronized void fail(String error, Instant expiresAt) {
+        this.status = JobStatus.FAILED;
+        this.error = error;
+        if (currentStage != null && stages.get(currentStage).status == StageStatus.RUNNING) {
+            stages.get(currentStage).status = StageStatus.FAILED;
+        }
+        release(expiresAt);
+    }
+
+    // back in the queue for another attempt once nextAttemptAt has passed
+    public synchronized void retryAt(String error, Instant nextAttemptAt) {
+        fail(error, null);
+        this.status = JobStatus.QUEUED;
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    private void release(Instant expiresAt) {
+        this.leaseOwner = null;
+        this.leaseExpiresAt = null;
+        this.expiresAt = expiresAt;
+        touch();
+    }
+
+    private void resetStages() {
+        for (JobStage stage : JobStage.values()) {
+            stages.put(stage, new StageProgress());
+        }
+    }
+
+    private void touch() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public static class StageProgress {
+        private StageStatus status = StageStatus.PENDING;
+        private int completed;
+        private int total;
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+
+        public StageStatus getStatus() { return status; }
+        public int getCompleted() { return completed; }
+        public int getTotal() { return total; }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public LocalDateTime getFinishedAt() { return finishedAt; }
+
+        private StageProgress copy() {
+            StageProgress copy = new StageProgress();
+            copy.status = status;
+            copy.completed = completed;
+            copy.total = total;
+            copy.startedAt = startedAt;
+            copy.finishedAt = finishedAt;
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.ram.project.documentsummerizer.model;
+
+import java.time.LocalDateTime;
+
+// Body of GET /api/documents/{id}: what the client shows, none of the storage references (text blob, kept PDF)
+// or the owner. extractedText is null when the text was not asked for.
+public record DocumentResponse(String id, String originalFileName, String extractedText, int extractedTextLength,
+                               String summary, LocalDateTime createdAt, StageStatus nativeStatus,
+                               StageStatus ocrStatus, StageStatus summaryStatus, int pageCount) {
+
+    public static DocumentResponse of(Document doc, boolean includeText) {
+        return new DocumentResponse(doc.getId(), doc.getOriginalFileName(), includeText ? doc.getExtractedText() : null,
+                doc.getExtractedTextLength(), doc.getSummary(), doc.getCreatedAt(), doc.getNativeStatus(),
+                doc.getOcrStatus(), doc.getSummaryStatus(), doc.getPageCount());
+    }
+}
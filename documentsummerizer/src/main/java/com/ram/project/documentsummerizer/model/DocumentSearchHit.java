@@ -0,0 +1,9 @@
+package com.ram.project.documentsummerizer.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// one search result; highlights are short passages with the matched terms wrapped in <mark>
+public record DocumentSearchHit(String id, String originalFileName, LocalDateTime createdAt, float score,
+                                List<String> highlights) {
+}
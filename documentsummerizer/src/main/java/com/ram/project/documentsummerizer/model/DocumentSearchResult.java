@@ -0,0 +1,6 @@
+package com.ram.project.documentsummerizer.model;
+
+import java.util.List;
+
+public record DocumentSearchResult(long totalHits, List<DocumentSearchHit> hits) {
+}
@@ -0,0 +1,20 @@
+package com.ram.project.documentsummerizer.model;
+
+import java.time.LocalDateTime;
+
+// Lightweight projection of a Document for the history list: no extracted text, summary cut to a preview.
+public class DocumentSummary {
+    private String id;
+    private String originalFileName;
+    private LocalDateTime createdAt;
+    private String summaryPreview;
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getOriginalFileName() { return originalFileName; }
+    public void setOriginalFileName(String originalFileName) { this.originalFileName = originalFileName; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public String getSummaryPreview() { return summaryPreview; }
+    public void setSummaryPreview(String summaryPreview) { this.summaryPreview = summaryPreview; }
+}
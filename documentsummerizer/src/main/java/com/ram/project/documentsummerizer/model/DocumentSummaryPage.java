@@ -0,0 +1,7 @@
+package com.ram.project.documentsummerizer.model;
+
+import java.util.List;
+
+// One page of a user's history; nextCursor is null on the last page.
+public record DocumentSummaryPage(List<DocumentSummary> items, String nextCursor) {
+}
@@ -0,0 +1,46 @@
+package com.ram.project.documentsummerizer.model;
+
+import org.springframework.data.annotation.Id;
+
+import java.time.LocalDateTime;
+
+// Extraction and summary results keyed by the SHA-256 of the uploaded file, shared across users.
+// The text is stored deflate-compressed (ExtractionCache inflates it on read), so a long document stays
+// under the 16 MB BSON limit; extractedText is only set on entries written before that, and in memory.
+@org.springframework.data.mongodb.core.mapping.Document(collection = "extraction_cache")
+public class ExtractionCacheEntry {
+    @Id
+    private String contentHash;
+    private String extractedText;
+    private byte[] compressedText;
+    private String summary;
+    private LocalDateTime createdAt;
+
+    public ExtractionCacheEntry() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public ExtractionCacheEntry(String contentHash, String extractedText, String summary) {
+        this.contentHash = contentHash;
+        this.extractedText = extractedText;
+        this.summary = summary;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public static ExtractionCacheEntry compressed(String contentHash, byte[] compressedText, String summary) {
+        ExtractionCacheEntry entry = new ExtractionCacheEntry(contentHash, null, summary);
+        entry.compressedText = compressedText;
+        return entry;
+    }
+
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    public String getExtractedText() { return extractedText; }
+    public void setExtractedText(String extractedText) { this.extractedText = extractedText; }
+    public byte[] getCompressedText() { return compressedText; }
+    public void setCompressedText(byte[] compressedText) { this.compressedText = compressedText; }
+    public String getSummary() { return summary; }
+    public void setSummary(String summary) { this.summary = summary; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
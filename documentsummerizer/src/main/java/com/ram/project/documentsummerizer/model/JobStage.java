@@ -0,0 +1,8 @@
+package com.ram.project.documentsummerizer.model;
+
+public enum JobStage {
+    EXTRACTION,
+    OCR,
+    SUMMARIZATION,
+    SAVE
+}
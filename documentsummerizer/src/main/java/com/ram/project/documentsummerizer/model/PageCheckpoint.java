@@ -0,0 +1,41 @@
+package com.ram.project.documentsummerizer.model;
+
+import org.springframework.data.annotation.Id;
+
+import java.time.LocalDateTime;
+
+// OCR text of one page, written as soon as the page is recognised so a failed or interrupted run can resume
+// from the pages it already has. Kept only until the document's text is complete.
+@org.springframework.data.mongodb.core.mapping.Document(collection = "page_checkpoints")
+public class PageCheckpoint {
+    // "<documentId>:<page>", so checkpointing the same page twice just overwrites it
+    @Id
+    private String id;
+    private String documentId;
+    private int page;
+    private String text;
+    private LocalDateTime createdAt;
+
+    public PageCheckpoint() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public PageCheckpoint(String documentId, int page, String text) {
+        this.id = documentId + ":" + page;
+        this.documentId = documentId;
+        this.page = page;
+        this.text = text;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+    public String getDocumentId() { return documentId; }
+    public void setDocumentId(String documentId) { this.documentId = documentId; }
+    public int getPage() { return page; }
+    public void setPage(int page) { this.page = page; }
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,9 @@
+package com.ram.project.documentsummerizer.model;
+
+public enum StageStatus {
+    PENDING,
+    RUNNING,
+    DONE,
+    SKIPPED,
+    FAILED
+}
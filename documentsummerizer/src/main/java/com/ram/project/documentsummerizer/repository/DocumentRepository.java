@@ -3,16 +3,29 @@ package com.ram.project.documentsummerizer.repository;
 
 import com.ram.project.documentsummerizer.model.Document;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional; 
 
 
 @Repository
-public interface DocumentRepository extends MongoRepository<Document, String> {
+public interface DocumentRepository extends MongoRepository<Document, String>, DocumentRepositoryCustom {
     
     List<Document> findByUserId(String userId);
 
 
     Optional<Document> findById(String id);
+
+    // 1 when the reprocess lock was taken, 0 while another reprocess holds it and it has not run out
+    @Query("{ '_id': ?0, $or: [ { 'reprocessingUntil': { $exists: false } }, { 'reprocessingUntil': { $lt: ?1 } } ] }")
+    @Update("{ '$set': { 'reprocessingUntil': ?2 } }")
+    long lockForReprocess(String id, Instant now, Instant until);
+
+    @Query("{ '_id': ?0 }")
+    @Update("{ '$unset': { 'reprocessingUntil': '' } }")
+    void unlockReprocess(String id);
 }
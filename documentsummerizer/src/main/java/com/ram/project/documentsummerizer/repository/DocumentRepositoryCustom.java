@@ -0,0 +1,12 @@
+package com.ram.project.documentsummerizer.repository;
+
+import com.ram.project.documentsummerizer.model.DocumentSummary;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface DocumentRepositoryCustom {
+
+    // newest first, strictly after the (createdAt, id) keyset position when one is given
+    List<DocumentSummary> findSummariesByUserId(String userId, LocalDateTime beforeCreatedAt, String beforeId, int limit);
+}
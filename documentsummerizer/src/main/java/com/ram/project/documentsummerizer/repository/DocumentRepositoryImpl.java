@@ -0,0 +1,50 @@
+package com.ram.project.documentsummerizer.repository;
+
+import com.ram.project.documentsummerizer.model.Document;
+import com.ram.project.documentsummerizer.model.DocumentSummary;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.StringOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+class DocumentRepositoryImpl implements DocumentRepositoryCustom {
+
+    static final int SUMMARY_PREVIEW_LENGTH = 200;
+
+    private final MongoTemplate mongoTemplate;
+
+    DocumentRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<DocumentSummary> findSummariesByUserId(String userId, LocalDateTime beforeCreatedAt, String beforeId, int limit) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (beforeCreatedAt != null) {
+            criteria = criteria.orOperator(
+                    Criteria.where("createdAt").lt(beforeCreatedAt),
+                    Criteria.where("createdAt").is(beforeCreatedAt).and("_id").lt(beforeId));
+        }
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"))
+                .limit(limit);
+        // one char past the preview length tells the mapper whether the summary was cut
+        query.fields().include("originalFileName", "createdAt")
+                .project(StringOperators.valueOf("summary").substringCP(0, SUMMARY_PREVIEW_LENGTH + 1))
+                .as("summaryPreview");
+
+        List<DocumentSummary> summaries = mongoTemplate.find(query, DocumentSummary.class,
+                mongoTemplate.getCollectionName(Document.class));
+        for (DocumentSummary summary : summaries) {
+            String preview = summary.getSummaryPreview();
+            if (preview != null && preview.length() > SUMMARY_PREVIEW_LENGTH) {
+                summary.setSummaryPreview(preview.substring(0, SUMMARY_PREVIEW_LENGTH) + "...");
+            }
+        }
+        return summaries;
+    }
+}
@@ -0,0 +1,9 @@
+package com.ram.project.documentsummerizer.repository;
+
+import com.ram.project.documentsummerizer.model.ExtractionCacheEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ExtractionCacheRepository extends MongoRepository<ExtractionCacheEntry, String> {
+}
@@ -0,0 +1,15 @@
+package com.ram.project.documentsummerizer.repository;
+
+import com.ram.project.documentsummerizer.model.PageCheckpoint;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PageCheckpointRepository extends MongoRepository<PageCheckpoint, String> {
+
+    List<PageCheckpoint> findByDocumentId(String documentId);
+
+    void deleteByDocumentId(String documentId);
+}
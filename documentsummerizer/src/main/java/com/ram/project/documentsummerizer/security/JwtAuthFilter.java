@@ -1,35 +1,27 @@
-
 package com.ram.project.documentsummerizer.security;
 
-import com.ram.project.documentsummerizer.service.AuthService;
+import com.ram.project.documentsummerizer.model.User;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.util.Optional;
 
 
 @Component 
 public class JwtAuthFilter extends OncePerRequestFilter {
 
-    private static final Logger logger = LoggerFactory.getLogger(JwtAuthFilter.class);
-
-    private final AuthService authService;
-    private final UserDetailsService userDetailsService;
+    private final JwtPrincipalCache jwtPrincipalCache;
 
     
-    public JwtAuthFilter(AuthService authService, UserDetailsService userDetailsService) {
-        this.authService = authService;
-        this.userDetailsService = userDetailsService;
+    public JwtAuthFilter(JwtPrincipalCache jwtPrincipalCache) {
+        this.jwtPrincipalCache = jwtPrincipalCache;
     }
 
     @Override
@@ -37,27 +29,18 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
 
         String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String username = null;
 
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-            try {
-                username = authService.extractUsername(token);
-            } catch (Exception e) {
-                logger.error("JWT parsing error: {}", e.getMessage(), e);
-                SecurityContextHolder.clearContext();
-            }
-        }
-
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
-            
-            if (authService.validateJwtToken(token) && userDetails != null) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // token verified once and cached until it expires, the principal comes from its claims
+            Optional<User> user = jwtPrincipalCache.resolve(authHeader.substring(7));
+            if (user.isPresent()) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
+                        user.get(), null, user.get().getAuthorities());
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
+            } else {
+                SecurityContextHolder.clearContext();
             }
         }
         filterChain.doFilter(request, response);
@@ -0,0 +1,79 @@
+package com.ram.project.documentsummerizer.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.ram.project.documentsummerizer.model.User;
+import com.ram.project.documentsummerizer.service.AuthService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+
+// Verified tokens and the principal built from their claims, keyed by the SHA-256 of the token so raw
+// tokens are never held. Entries expire together with the token, so a cached principal is never
+// handed out for a token the parser would reject as expired.
+@Component
+public class JwtPrincipalCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtPrincipalCache.class);
+
+    private final AuthService authService;
+    private final Cache<String, CachedPrincipal> cache;
+
+    public JwtPrincipalCache(AuthService authService,
+                             @Value("${security.jwt.principal-cache.max-size:10000}") long maxSize) {
+        this.authService = authService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(Expiry.creating((String key, CachedPrincipal cached) ->
+                        Duration.between(Instant.now(), cached.expiresAt())))
+                .build();
+    }
+
+    public Optional<User> resolve(String token) {
+        String key = sha256(token);
+        CachedPrincipal cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Optional.of(cached.user());
+        }
+        try {
+            Claims claims = authService.parseVerifiedClaims(token);
+            String id = claims.get("id", String.class);
+            if (id == null || claims.getExpiration() == null) {
+                logger.warn("JWT for {} has no id or expiry claim, rejecting it.", claims.getSubject());
+                return Optional.empty();
+            }
+            // everything the app needs from the principal is in the token, no user lookup
+            User user = new User(claims.getSubject(), null);
+            user.setId(id);
+            cache.put(key, new CachedPrincipal(user, claims.getExpiration().toInstant()));
+            return Optional.of(user);
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.warn("Rejected JWT: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static String sha256(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record CachedPrincipal(User user, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,206 @@
+package com.ram.project.documentsummerizer.service;
+
+import com.sun.management.OperatingSystemMXBean;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Admission control in front of the pipeline. Each upload gets a cost estimate before any real work: its page
+// count and, from a sample of pages, how many will likely fall through to OCR. Uploads with no expected OCR and
+// at most admission.fast-lane.max-pages pages take the fast lane and are always let in. The rest count against
+// a per-user concurrency quota and a node-wide budget of estimated OCR pages in flight, and are turned away
+// while the CPU or the OCR queue is saturated. The caller decides what turned away means: 429 for
+// synchronous uploads, the back of the queue for jobs.
+@Service
+public class AdmissionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionService.class);
+
+    private final OcrService ocrService;
+    private final PipelineMetrics pipelineMetrics;
+    private final OperatingSystemMXBean os = ManagementFactory.getPlatformMXBean(OperatingSystemMXBean.class);
+    private final Map<String, Integer> inFlightByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingOcrPages = new AtomicInteger();
+    private final boolean enabled;
+    private final int samplePages;
+    private final int fastLaneMaxPages;
+    private final int perUserMaxConcurrent;
+    private final int maxPendingOcrPages;
+    private final double cpuThreshold;
+    private final double secondsPerOcrPage;
+    private volatile double cpuLoad;
+    private volatile long cpuSampledAt;
+
+    public AdmissionService(OcrService ocrService, PipelineMetrics pipelineMetrics,
+                            @Value("${admission.enabled:true}") boolean enabled,
+                            @Value("${admission.sample-pages:8}") int samplePages,
+                            @Value("${admission.fast-lane.max-pages:50}") int fastLaneMaxPages,
+                            @Value("${admission.per-user.max-concurrent:2}") int perUserMaxConcurrent,
+                            @Value("${admission.max-pending-ocr-pages:400}") int maxPendingOcrPages,
+                            @Value("${admission.cpu-threshold:0.9}") double cpuThreshold,
+                            @Value("${admission.seconds-per-ocr-page:2}") double secondsPerOcrPage) {
+        this.ocrService = ocrService;
+        this.pipelineMetrics = pipelineMetrics;
+        this.enabled = enabled;
+        this.samplePages = samplePages;
+        this.fastLaneMaxPages = fastLaneMaxPages;
+        this.perUserMaxConcurrent = perUserMaxConcurrent;
+        this.maxPendingOcrPages = maxPendingOcrPages;
+        this.cpuThreshold = cpuThreshold;
+        this.secondsPerOcrPage = secondsPerOcrPage;
+        pipelineMetrics.queueGauge("documents.admission.pending.ocr.pages",
+                "Estimated OCR pages of admitted uploads still in flight", pendingOcrPages::get);
+    }
+
+    // Page count plus the share of sampled pages whose native text is good enough to skip OCR.
+    // Unreadable PDFs are estimated as cheap, the pipeline turns them away quickly on its own.
+    public Estimate estimate(Path pdf) {
+        try (PDDocument document = PDDocument.load(pdf.toFile(), MemoryUsageSetting.setupTempFileOnly())) {
+            return estimate(document);
+        } catch (IOException e) {
+            logger.debug("Could not estimate {}: {}", pdf, e.getMessage());
+            return new Estimate(0, 0, true);
+        }
+    }
+
+    // same, on a PDF the pipeline has already loaded, so the upload is parsed only once
+    public Estimate estimate(PDDocument document) {
+        long start = System.nanoTime();
+        try {
+            int pages = document.getNumberOfPages();
+            int sampled = Math.min(pages, samplePages);
+            int nativeOk = 0;
+            PDFTextStripper stripper = new PDFTextStripper();
+            for (int i = 0; i < sampled; i++) {
+                // evenly spread over the document, 1-based for the stripper
+                int page = (int) ((long) i * pages / sampled) + 1;
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                if (TextQualityAnalyzer.analyze(stripper.getText(document)).isSufficient(DocumentService.MIN_PAGE_TEXT_LENGTH_NATIVE)) {
+                    nativeOk++;
+                }
+            }
+            int ocrPages = sampled == 0 ? 0 : (int) Math.ceil(pages * (1.0 - (double) nativeOk / sampled));
+            return new Estimate(pages, ocrPages, ocrPages == 0 && pages <= fastLaneMaxPages);
+        } catch (IOException e) {
+            logger.debug("Could not estimate a PDF: {}", e.getMessage());
+            return new Estimate(0, 0, true);
+        } finally {
+            pipelineMetrics.recordStage("admission_estimate", start);
+        }
+    }
+
+    // Admits the upload or throws UploadRejectedException with a Retry-After hint. Close the ticket when done.
+    public Ticket tryAdmit(String userId, Estimate estimate) {
+        if (!enabled || estimate.fastLane()) {
+            pipelineMetrics.admissionDecision("fast", "admitted");
+            return new Ticket(null, 0);
+        }
+        if (inFlightByUser.merge(userId, 1, Integer::sum) > perUserMaxConcurrent) {
+            release(userId);
+            pipelineMetrics.admissionDecision("normal", "rejected_quota");
+            throw new UploadRejectedException("You already have " + perUserMaxConcurrent
+                    + " large documents processing. Please wait for one to finish.", retryAfterSeconds(estimate));
+        }
+        int pending = pendingOcrPages.addAndGet(estimate.ocrPages());
+        // a document bigger than the whole budget still gets in when nothing else is pending
+        boolean overBudget = pending > maxPendingOcrPages && pending > estimate.ocrPages();
+        if (overBudget || (estimate.ocrPages() > 0 && overloaded())) {
+            pendingOcrPages.addAndGet(-estimate.ocrPages());
+            release(userId);
+            pipelineMetrics.admissionDecision("normal", "rejected_saturated");
+            throw new UploadRejectedException("The server is busy with OCR work. Please retry shortly.",
+                    retryAfterSeconds(estimate));
+        }
+        pipelineMetrics.admissionDecision("normal", "admitted");
+        return new Ticket(userId, estimate.ocrPages());
+    }
+
+    // Accounting only, for work that already waited its turn in the job queue and must not be turned away now.
+    public Ticket admit(String userId, Estimate estimate) {
+        if (!enabled || estimate.fastLane()) {
+            return new Ticket(null, 0);
+        }
+        inFlightByUser.merge(userId, 1, Integer::sum);
+        pendingOcrPages.addAndGet(estimate.ocrPages());
+        return new Ticket(userId, estimate.ocrPages());
+    }
+
+    // For work admitted file by file later on (batches): turns it away up front while the user is at the quota.
+    public void checkQuota(String userId) {
+        if (enabled && inFlightByUser.getOrDefault(userId, 0) >= perUserMaxConcurrent) {
+            pipelineMetrics.admissionDecision("normal", "rejected_quota");
+            throw new UploadRejectedException("You already have " + perUserMaxConcurrent
+                    + " large documents processing. Please wait for one to finish.",
+                    retryAfterSeconds(new Estimate(0, 0, false)));
+        }
+    }
+
+    // whether OCR-heavy work should wait: CPU over the threshold or the OCR budget used up
+    public boolean isSaturated() {
+        return enabled && (pendingOcrPages.get() >= maxPendingOcrPages || overloaded());
+    }
+
+    public void deferred() {
+        pipelineMetrics.admissionDecision("normal", "deferred");
+    }
+
+    private boolean overloaded() {
+        return cpuLoad() >= cpuThreshold || ocrService.getQueuedPages() >= ocrService.getMaxPagesInFlight();
+    }
+
+    // the MXBean value is averaged over the time since the last call, so it is sampled at most once a second
+    private double cpuLoad() {
+        long now = System.currentTimeMillis();
+        if (now - cpuSampledAt >= 1000) {
+            cpuSampledAt = now;
+            double load = os.getCpuLoad();
+            cpuLoad = load < 0 ? 0 : load;
+        }
+        return cpuLoad;
+    }
+
+    // roughly how long until the OCR pages ahead of this upload are worked off
+    private long retryAfterSeconds(Estimate estimate) {
+        double seconds = (pendingOcrPages.get() + estimate.ocrPages()) * secondsPerOcrPage / ocrService.getThreads();
+        return Math.max(5, Math.min(300, (long) Math.ceil(seconds)));
+    }
+
+    private void release(String userId) {
+        inFlightByUser.computeIfPresent(userId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    public record Estimate(int pages, int ocrPages, boolean fastLane) {}
+
+    public class Ticket implements AutoCloseable {
+        private final String userId;
+        private final int ocrPages;
+        private boolean closed;
+
+        private Ticket(String userId, int ocrPages) {
+            this.userId = userId;
+            this.ocrPages = ocrPages;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (closed || userId == null) {
+                return;
+            }
+            closed = true;
+            pendingOcrPages.addAndGet(-ocrPages);
+            release(userId);
+        }
+    }
+}
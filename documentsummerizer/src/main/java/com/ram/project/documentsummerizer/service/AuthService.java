@@ -7,12 +7,12 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration; 
 
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.Claims;
@@ -38,6 +38,8 @@ public class AuthService {
 
     private static final String SECRET_STRING = "aSuperSecretKeyForBriefifyAppThatIsAtLeast32BytesLongAndShouldBeVerySecure";
     private final SecretKey jwtSecret = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET_STRING));
+    // thread-safe, built once instead of per parse
+    private final JwtParser jwtParser = Jwts.parser().verifyWith(jwtSecret).build();
 
     private final long jwtExpirationMinutes = 1440; 
 
@@ -73,8 +75,7 @@ public class AuthService {
             throw new RuntimeException("Authentication failed: Invalid credentials or internal error.");
         }
 
-        SecurityContextHolder.getContext().setAuthentication(authentication);
-
+        // no SecurityContext here: this runs on the password hashing pool and sessions are stateless
         return generateJwtToken(authentication);
     }
 
@@ -101,19 +102,17 @@ public class AuthService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(jwtSecret)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parseVerifiedClaims(token);
+    }
+
+    // checks signature and expiry in one parse, throws a JwtException when either is off
+    public Claims parseVerifiedClaims(String token) {
+        return jwtParser.parseSignedClaims(token).getPayload();
     }
 
     public boolean validateJwtToken(String authToken) {
         try {
-            Jwts.parser()
-                    .verifyWith(jwtSecret)
-                    .build()
-                    .parseClaimsJws(authToken);
+            parseVerifiedClaims(authToken);
             return true;
         } catch (io.jsonwebtoken.security.SignatureException e) {
             System.err.println("Invalid JWT signature: " + e.getMessage());
@@ -0,0 +1,99 @@
+package com.ram.project.documentsummerizer.service;
+
+import com.ram.project.documentsummerizer.model.BatchUpload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Optional;
+
+// Batch manifests in Mongo. Writes during a run are fenced on the owner, so once a batch has been given up
+// as abandoned a node that was only slow can no longer overwrite it. Like the checkpoints, a failed write
+// is logged and the batch carries on; the next write of that file or the final one catches up.
+@Component
+public class BatchStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchStore.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    public BatchStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public void insert(BatchUpload batch) {
+        mongoTemplate.insert(batch);
+    }
+
+    public Optional<BatchUpload> find(String batchId) {
+        return Optional.ofNullable(mongoTemplate.findById(batchId, BatchUpload.class));
+    }
+
+    public void delete(String batchId) {
+        try {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").is(batchId)), BatchUpload.class);
+        } catch (Exception e) {
+            logger.warn("Could not delete batch {}: {}", batchId, e.getMessage());
+        }
+    }
+
+    // just the one manifest line, not the whole batch
+    public void fileUpdated(BatchUpload batch, int index) {
+        try {
+            mongoTemplate.updateFirst(owned(batch), new Update()
+                    .set("files." + index, batch.getFile(index))
+                    .set("updatedAt", batch.getUpdatedAt()), BatchUpload.class);
+        } catch (Exception e) {
+            logger.warn("Could not save file {} of batch {}: {}", index, batch.getId(), e.getMessage());
+        }
+    }
+
+    // the whole manifest once more with the lease released, which also repairs any per-file write that failed
+    public void finished(BatchUpload batch, String owner) {
+        try {
+            mongoTemplate.findAndReplace(Query.query(Criteria.where("_id").is(batch.getId()).and("owner").is(owner)), batch);
+        } catch (Exception e) {
+            logger.warn("Could not save finished batch {}: {}", batch.getId(), e.getMessage());
+        }
+    }
+
+    public void extendLeases(Collection<String> batchIds, String owner, Instant leaseExpiresAt) {
+        if (batchIds.isEmpty()) {
+            return;
+        }
+        try {
+            mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(batchIds).and("owner").is(owner)),
+                    new Update().set("leaseExpiresAt", leaseExpiresAt), BatchUpload.class);
+        } catch (Exception e) {
+            logger.warn("Could not extend batch leases: {}", e.getMessage());
+        }
+    }
+
+    // Batches whose node stopped heartbeating. Their spooled files were on that node, so what is left
+    // cannot be resumed; the remaining files are failed and the user can upload them again.
+    public int failAbandoned(Instant expiresAt) {
+        Query query = Query.query(Criteria.where("owner").exists(true).and("leaseExpiresAt").lt(Instant.now()));
+        int count = 0;
+        BatchUpload batch;
+        while ((batch = mongoTemplate.findAndModify(query, new Update().unset("owner").unset("leaseExpiresAt"),
+                FindAndModifyOptions.options().returnNew(true), BatchUpload.class)) != null) {
+            batch.failUnfinished("Processing was interrupted, please upload this file again.");
+            batch.release(expiresAt);
+            mongoTemplate.save(batch);
+            logger.warn("Batch {} lost its node, {} files failed", batch.getId(), batch.getFailed());
+            count++;
+        }
+        return count;
+    }
+
+    private static Query owned(BatchUpload batch) {
+        return Query.query(Criteria.where("_id").is(batch.getId()).and("owner").is(batch.getOwner()));
+    }
+}
@@ -0,0 +1,385 @@
+package com.ram.project.documentsummerizer.service;
+
+import com.ram.project.documentsummerizer.model.BatchUpload;
+import com.ram.project.documentsummerizer.model.Document;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+// Multi-file uploads (a list of PDFs or one ZIP). A batch runs on at most documents.batch.concurrency of the
+// pipeline workers, sharing the OCR pool and Groq client with single uploads while leaving workers free for them.
+// Finished Documents are buffered and written with one insertMany per flush instead of a save per file.
+// The files are spooled to local disk, so a batch runs on the node that received it; its manifest lives in
+// Mongo (BatchStore) under a lease, so its status can be read on any node and a batch whose node dies
+// is failed by whichever node notices the lease ran out.
+// A batch is turned away up front while its user is at the admission quota; once accepted, each file is
+// admitted as it is loaded, and OCR-heavy ones wait while OCR is saturated instead of failing.
+@Service
+public class BatchUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchUploadService.class);
+
+    private final DocumentService documentService;
+    private final ThreadPoolTaskExecutor pipelineExecutor;
+    private final BatchStore batchStore;
+    private final AdmissionService admissionService;
+    private final String nodeId;
+    // batches running on this node, for the heartbeat
+    private final Map<String, BatchUpload> running = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "batch-uploads");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${documents.batch.concurrency:2}")
+    private int concurrency;
+
+    @Value("${documents.batch.flush-size:20}")
+    private int flushSize;
+
+    @Value("${documents.batch.max-files:200}")
+    private int maxFiles;
+
+    @Value("${documents.batch.max-archive-extracted-mb:1024}")
+    private long maxArchiveExtractedMb;
+
+    @Value("${documents.jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    @Value("${documents.jobs.lease:60s}")
+    private Duration lease;
+
+    @Value("${documents.jobs.heartbeat-interval:10s}")
+    private Duration heartbeatInterval;
+
+    @Value("${documents.batch.admission-poll-interval:1s}")
+    private Duration admissionPollInterval;
+
+    public BatchUploadService(DocumentService documentService,
+                              @Qualifier("documentPipelineExecutor") ThreadPoolTaskExecutor pipelineExecutor,
+                              BatchStore batchStore, AdmissionService admissionService, NodeIdentity nodeIdentity) {
+        this.documentService = documentService;
+        this.pipelineExecutor = pipelineExecutor;
+        this.batchStore = batchStore;
+        this.admissionService = admissionService;
+        this.nodeId = nodeIdentity.getId();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        long heartbeatMillis = heartbeatInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // batches still running here are failed by another node once their lease runs out
+        scheduler.shutdownNow();
+    }
+
+    public BatchUpload submitFiles(List<MultipartFile> files, String userId, boolean summarize) throws IOException {
+        if (files.size() > maxFiles) {
+            throw new IllegalArgumentException("A batch can hold at most " + maxFiles + " files.");
+        }
+        admissionService.checkQuota(userId);
+        Path dir = Files.createTempDirectory("briefify-batch-");
+        List<SpooledFile> spooled = new ArrayList<>();
+        try {
+            for (MultipartFile file : files) {
+                String name = Objects.requireNonNullElse(file.getOriginalFilename(), "unnamed");
+                if (file.isEmpty() || !isPdf(name)) {
+                    spooled.add(new SpooledFile(name, null, file.isEmpty() ? "Empty file." : "Only PDF files are allowed."));
+                    continue;
+                }
+                // the multipart temp files go away when the request ends, so the workers read our own copies
+                Path target = dir.resolve(spooled.size() + ".pdf");
+                file.transferTo(target);
+                spooled.add(new SpooledFile(name, target, null));
+            }
+        } catch (IOException | RuntimeException e) {
+            FileSystemUtils.deleteRecursively(dir.toFile());
+            throw e;
+        }
+        return start(userId, dir, spooled, summarize);
+    }
+
+    // ZIP ingest: only .pdf entries are taken, folders and macOS resource forks are skipped
+    public BatchUpload submitArchive(MultipartFile archive, String userId, boolean summarize) throws IOException {
+        admissionService.checkQuota(userId);
+        Path dir = Files.createTempDirectory("briefify-batch-");
+        List<SpooledFile> spooled = new ArrayList<>();
+        long budget = maxArchiveExtractedMb * 1024 * 1024;
+        try (ZipInputStream zip = new ZipInputStream(archive.getInputStream())) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                String name = entry.getName();
+                if (entry.isDirectory() || name.startsWith("__MACOSX/") || !isPdf(name)) {
+                    continue;
+                }
+                if (spooled.size() == maxFiles) {
+                    throw new IllegalArgumentException("A batch can hold at most " + maxFiles + " files.");
+                }
+                // entries are written under our own names, so paths inside the archive never touch the filesystem
+                Path target = dir.resolve(spooled.size() + ".pdf");
+                budget -= copyLimited(zip, target, budget);
+                spooled.add(new SpooledFile(name.substring(name.lastIndexOf('/') + 1), target, null));
+            }
+        } catch (IOException | RuntimeException e) {
+            FileSystemUtils.deleteRecursively(dir.toFile());
+            throw e;
+        }
+        if (spooled.isEmpty()) {
+            FileSystemUtils.deleteRecursively(dir.toFile());
+            throw new IllegalArgumentException("The archive contains no PDF files.");
+        }
+        return start(userId, dir, spooled, summarize);
+    }
+
+    public Optional<BatchUpload> getBatch(String batchId, String userId) {
+        return batchStore.find(batchId)
+                .filter(batch -> batch.getUserId().equals(userId))
+                .filter(batch -> !batch.isExpired());
+    }
+
+    private BatchUpload start(String userId, Path dir, List<SpooledFile> files, boolean summarize) {
+        BatchUpload batch = new BatchUpload(UUID.randomUUID().toString(), userId,
+                files.stream().map(SpooledFile::name).toList());
+        for (int i = 0; i < files.size(); i++) {
+            if (files.get(i).path() == null) {
+                batch.markFailed(i, files.get(i).rejection());
+            }
+        }
+        batch.lease(nodeId, Instant.now().plus(lease));
+        try {
+            batchStore.insert(batch);
+        } catch (RuntimeException e) {
+            FileSystemUtils.deleteRecursively(dir.toFile());
+            throw e;
+        }
+        running.put(batch.getId(), batch);
+
+        BatchRun run = new BatchRun(batch, dir, files, summarize);
+        int workers = Math.max(1, Math.min(concurrency, files.size()));
+        run.activeWorkers.set(workers);
+        int started = 0;
+        try {
+            for (; started < workers; started++) {
+                pipelineExecutor.execute(() -> runWorker(run));
+            }
+        } catch (TaskRejectedException e) {
+            if (started == 0) {
+                running.remove(batch.getId());
+                batchStore.delete(batch.getId());
+                FileSystemUtils.deleteRecursively(dir.toFile());
+                throw e;
+            }
+            // the workers that did get in still drain the whole batch, just with less parallelism
+            if (run.activeWorkers.addAndGet(started - workers) == 0) {
+                finish(run);
+            }
+        }
+        logger.info("Queued batch {} with {} files on {} workers", batch.getId(), files.size(), started);
+        return batch;
+    }
+
+    // each worker pulls the next file until the batch is drained; the last one out writes the final flush
+    private void runWorker(BatchRun run) {
+        try {
+            int index;
+            while ((index = run.next.getAndIncrement()) < run.files.size()) {
+                processFile(run, index);
+            }
+        } finally {
+            if (run.activeWorkers.decrementAndGet() == 0) {
+                finish(run);
+            }
+        }
+    }
+
+    private void finish(BatchRun run) {
+        flush(run, true);
+        running.remove(run.batch.getId());
+        // finished batches are dropped by the TTL index on expiresAt
+        run.batch.release(Instant.now().plus(Duration.ofMinutes(retentionMinutes)));
+        batchStore.finished(run.batch, nodeId);
+        FileSystemUtils.deleteRecursively(run.dir.toFile());
+        logger.info("Batch {} finished: {} completed, {} failed", run.batch.getId(),
+                run.batch.getCompleted(), run.batch.getFailed());
+    }
+
+    private void processFile(BatchRun run, int index) {
+        SpooledFile file = run.files.get(index);
+        if (file.path() == null) {
+            return;
+        }
+        run.batch.markRunning(index);
+        batchStore.fileUpdated(run.batch, index);
+        AtomicReference<Document> staged = new AtomicReference<>();
+        AtomicReference<AdmissionService.Ticket> ticket = new AtomicReference<>();
+        try {
+            String message = documentService.processDocument(file.name(), new FileSystemResource(file.path()),
+                    run.batch.getUserId(), run.summarize, ProcessingListener.NONE, doc -> {
+                        documentService.stageForInsert(doc);
+                        staged.set(doc);
+                    }, pdf -> ticket.set(admit(run, pdf)));
+            synchronized (run.pending) {
+                run.pending.add(new StagedDocument(index, staged.get(), message));
+            }
+        } catch (Exception e) {
+            logger.error("Batch {} file {} failed: {}", run.batch.getId(), file.name(), e.getMessage(), e);
+            run.batch.markFailed(index, e.getMessage());
+            batchStore.fileUpdated(run.batch, index);
+        } finally {
+            if (ticket.get() != null) {
+                ticket.get().close();
+            }
+            try {
+                Files.deleteIfExists(file.path());
+            } catch (IOException e) {
+                logger.warn("Could not delete temp upload {}: {}", file.path(), e.getMessage());
+            }
+        }
+        flush(run, false);
+    }
+
+    // the batch was already accepted, so a file is never turned away: an OCR-heavy one waits for capacity
+    private AdmissionService.Ticket admit(BatchRun run, PDDocument pdf) {
+        AdmissionService.Estimate estimate = admissionService.estimate(pdf);
+        if (!estimate.fastLane() && admissionService.isSaturated()) {
+            admissionService.deferred();
+            logger.info("Batch {} waits for OCR capacity (~{} OCR pages next)", run.batch.getId(), estimate.ocrPages());
+            do {
+                try {
+                    Thread.sleep(admissionPollInterval.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for OCR capacity.");
+                }
+            } while (admissionService.isSaturated());
+        }
+        return admissionService.admit(run.batch.getUserId(), estimate);
+    }
+
+    private void flush(BatchRun run, boolean force) {
+        List<StagedDocument> group;
+        synchronized (run.pending) {
+            if (run.pending.isEmpty() || (!force && run.pending.size() < flushSize)) {
+                return;
+            }
+            group = new ArrayList<>(run.pending);
+            run.pending.clear();
+        }
+        try {
+            documentService.insertAll(group.stream().map(StagedDocument::document).toList());
+            group.forEach(staged -> {
+                run.batch.markCompleted(staged.index(), staged.document().getId(), staged.message());
+                batchStore.fileUpdated(run.batch, staged.index());
+            });
+        } catch (Exception e) {
+            // one bad document (or a blip) should not fail the whole group, so retry them one at a time
+            logger.warn("Batch {} insert of {} documents failed, saving them one by one: {}", run.batch.getId(),
+                    group.size(), e.getMessage());
+            group.forEach(staged -> saveOne(run, staged));
+        }
+    }
+
+    private void saveOne(BatchRun run, StagedDocument staged) {
+        try {
+            documentService.saveStaged(staged.document());
+            run.batch.markCompleted(staged.index(), staged.document().getId(), staged.message());
+            batchStore.fileUpdated(run.batch, staged.index());
+        } catch (Exception e) {
+            logger.error("Batch {} could not save document {}: {}", run.batch.getId(), staged.document().getId(), e.getMessage(), e);
+            run.batch.markFailed(staged.index(), "Saving the document failed - " + e.getMessage());
+            batchStore.fileUpdated(run.batch, staged.index());
+            // stageForInsert already stored the text in GridFS
+            documentService.discardStaged(staged.document());
+        }
+    }
+
+    // keeps this node's batches leased and fails the ones whose node stopped doing the same
+    private void heartbeat() {
+        try {
+            batchStore.extendLeases(running.keySet(), nodeId, Instant.now().plus(lease));
+            batchStore.failAbandoned(Instant.now().plus(Duration.ofMinutes(retentionMinutes)));
+        } catch (Exception e) {
+            logger.warn("Batch heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    private static boolean isPdf(String name) {
+        return name.toLowerCase().endsWith(".pdf");
+    }
+
+    // copies one archive entry, failing once the batch's extracted size goes over budget (zip bombs)
+    private static long copyLimited(InputStream in, Path target, long budget) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long written = 0;
+        try (OutputStream out = Files.newOutputStream(target)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                written += read;
+                if (written > budget) {
+                    throw new IllegalArgumentException("The archive is too large once extracted.");
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+        return written;
+    }
+
+    private record SpooledFile(String name, Path path, String rejection) {}
+
+    private record StagedDocument(int index, Document document, String message) {}
+
+    private static class BatchRun {
+        private final BatchUpload batch;
+        private final Path dir;
+        private final List<SpooledFile> files;
+        private final boolean summarize;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger activeWorkers = new AtomicInteger();
+        private final List<StagedDocument> pending = new ArrayList<>();
+
+        BatchRun(BatchUpload batch, Path dir, List<SpooledFile> files, boolean summarize) {
+            this.batch = batch;
+            this.dir = dir;
+            this.files = files;
+            this.summarize = summarize;
+        }
+    }
+}
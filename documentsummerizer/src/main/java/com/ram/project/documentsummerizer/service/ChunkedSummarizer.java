@@ -0,0 +1,148 @@
+package com.ram.project.documentsummerizer.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// Map-reduce summarization for documents too long for one prompt. The text is split on paragraph
+// (and therefore page) boundaries into chunks that fit a token budget, the chunks are summarized
+// concurrently, and the partial summaries are merged, in further rounds if they are still too long.
+@Service
+public class ChunkedSummarizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedSummarizer.class);
+    private static final Pattern PARAGRAPH_BREAK = Pattern.compile("\\n\\s*\\n");
+    // rough estimate for English text with the llama tokenizer
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final SummarizationProvider summarizationProvider;
+    private final boolean enabled;
+    private final int maxChunkChars;
+    private final int concurrency;
+
+    public ChunkedSummarizer(SummarizationProvider summarizationProvider,
+                             @Value("${summary.chunked.enabled:true}") boolean enabled,
+                             @Value("${summary.chunk.max-tokens:4000}") int maxChunkTokens,
+                             @Value("${summary.chunk.concurrency:4}") int concurrency) {
+        this.summarizationProvider = summarizationProvider;
+        this.enabled = enabled;
+        this.maxChunkChars = maxChunkTokens * CHARS_PER_TOKEN;
+        this.concurrency = concurrency;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Mono<String> summarize(String text) {
+        List<String> chunks = split(text);
+        if (chunks.size() == 1) {
+            return summarizationProvider.summarize(text);
+        }
+        return mapChunks(text, chunks)
+                .flatMap(this::reduceToFinalBatch)
+                .flatMap(batch -> batch.size() == 1 ? Mono.just(batch.get(0)) : summarizationProvider.mergeSummaries(batch));
+    }
+
+    // map and intermediate reduce rounds run as usual, only the final merge is streamed
+    public Flux<String> streamSummary(String text) {
+        List<String> chunks = split(text);
+        if (chunks.size() == 1) {
+            return summarizationProvider.streamSummary(text);
+        }
+        return mapChunks(text, chunks)
+                .flatMap(this::reduceToFinalBatch)
+                .flatMapMany(batch -> batch.size() == 1 ? Flux.just(batch.get(0)) : summarizationProvider.streamMergedSummary(batch));
+    }
+
+    private Mono<List<String>> mapChunks(String text, List<String> chunks) {
+        logger.info("Summarizing {} chars in {} chunks (concurrency {})", text.length(), chunks.size(), concurrency);
+        int total = chunks.size();
+        return Flux.range(0, total)
+                .flatMapSequential(i -> summarizationProvider.summarizeChunk(chunks.get(i), i + 1, total), concurrency)
+                .collectList();
+    }
+
+    // merges partial summaries in budget-sized batches until what is left fits in one merge call
+    private Mono<List<String>> reduceToFinalBatch(List<String> partials) {
+        if (partials.size() == 1 || totalLength(partials) <= maxChunkChars) {
+            return Mono.just(partials);
+        }
+        List<List<String>> groups = group(partials);
+        if (groups.size() == partials.size()) {
+            return Mono.just(partials); // every summary is already a batch of its own, regrouping would not shrink anything
+        }
+        return Flux.fromIterable(groups)
+                .flatMapSequential(summarizationProvider::mergeSummaries, concurrency)
+                .collectList()
+                .flatMap(this::reduceToFinalBatch);
+    }
+
+    List<String> split(String text) {
+        List<String> chunks = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String paragraph : PARAGRAPH_BREAK.split(text)) {
+            if (paragraph.isBlank()) {
+                continue;
+            }
+            for (String piece : splitOversized(paragraph)) {
+                if (current.length() > 0 && current.length() + piece.length() + 2 > maxChunkChars) {
+                    chunks.add(current.toString());
+                    current.setLength(0);
+                }
+                if (current.length() > 0) {
+                    current.append("\n\n");
+                }
+                current.append(piece);
+            }
+        }
+        if (current.length() > 0 || chunks.isEmpty()) {
+            chunks.add(current.toString());
+        }
+        return chunks;
+    }
+
+    // a single paragraph longer than the budget is cut at line breaks, or hard-cut as a last resort
+    private List<String> splitOversized(String paragraph) {
+        List<String> pieces = new ArrayList<>();
+        int start = 0;
+        while (paragraph.length() - start > maxChunkChars) {
+            int end = paragraph.lastIndexOf('\n', start + maxChunkChars);
+            if (end <= start) {
+                end = start + maxChunkChars;
+            }
+            pieces.add(paragraph.substring(start, end));
+            start = end;
+        }
+        pieces.add(paragraph.substring(start));
+        return pieces;
+    }
+
+    private List<List<String>> group(List<String> summaries) {
+        List<List<String>> groups = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        int length = 0;
+        for (String summary : summaries) {
+            if (!current.isEmpty() && length + summary.length() > maxChunkChars) {
+                groups.add(current);
+                current = new ArrayList<>();
+                length = 0;
+            }
+            current.add(summary);
+            length += summary.length();
+        }
+        groups.add(current);
+        return groups;
+    }
+
+    private static int totalLength(List<String> summaries) {
+        return summaries.stream().mapToInt(String::length).sum();
+    }
+}
@@ -0,0 +1,40 @@
+package com.ram.project.documentsummerizer.service;
+
+import java.time.Duration;
+
+// Per-provider breaker for SummarizationRouter. After failureThreshold failures in a row the provider is
+// skipped for openDuration; after that calls go through again, and one more failure reopens it straight away
+// (the count is only reset by a success).
+class CircuitBreaker {
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private int consecutiveFailures;
+    private long openUntil;
+    private boolean open;
+
+    CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    synchronized boolean allowsCall() {
+        return !open || System.nanoTime() - openUntil >= 0;
+    }
+
+    synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        open = false;
+    }
+
+    // true when this failure (re)opened the breaker
+    synchronized boolean recordFailure() {
+        consecutiveFailures++;
+        if (consecutiveFailures < failureThreshold) {
+            return false;
+        }
+        open = true;
+        openUntil = System.nanoTime() + openNanos;
+        return true;
+    }
+}
@@ -0,0 +1,409 @@
+package com.ram.project.documentsummerizer.service;
+
+import com.ram.project.documentsummerizer.model.Document;
+import com.ram.project.documentsummerizer.model.DocumentJob;
+import com.ram.project.documentsummerizer.model.JobStage;
+import com.ram.project.documentsummerizer.model.JobStatus;
+import com.ram.project.documentsummerizer.model.StageStatus;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Async uploads go through document_jobs, a work queue any node can serve. The upload itself waits in the
+// uploads GridFS bucket. Each node polls for work while it has free slots and claims a job with one
+// findAndModify that takes a lease; it heartbeats to keep the lease while the pipeline runs. A job whose lease
+// runs out (its node crashed or hung) becomes claimable again, and failed attempts are retried with backoff
+// until documents.jobs.max-attempts. Every write from the worker is fenced on still holding the lease of its
+// attempt, and the Document is saved under an id pinned on the job, so a retry overwrites rather than duplicates it.
+@Service
+public class DocumentJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentJobService.class);
+
+    private final DocumentService documentService;
+    private final ThreadPoolTaskExecutor pipelineExecutor;
+    private final MongoTemplate mongoTemplate;
+    private final UploadStore uploadStore;
+    private final AdmissionService admissionService;
+    private final Map<String, DocumentJob> claimed = new ConcurrentHashMap<>();
+    private final AtomicLong queuedJobs = new AtomicLong();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "document-jobs");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final String nodeId;
+    private volatile Semaphore slots;
+
+    @Value("${documents.jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    @Value("${documents.jobs.node-concurrency:0}")
+    private int nodeConcurrency;
+
+    @Value("${documents.jobs.max-queued:500}")
+    private long maxQueued;
+
+    @Value("${admission.per-user.max-queued-jobs:20}")
+    private long perUserMaxQueued;
+
+    @Value("${documents.jobs.lease:60s}")
+    private Duration lease;
+
+    @Value("${documents.jobs.heartbeat-interval:10s}")
+    private Duration heartbeatInterval;
+
+    @Value("${documents.jobs.poll-interval:1s}")
+    private Duration pollInterval;
+
+    @Value("${documents.jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${documents.jobs.retry-backoff:30s}")
+    private Duration retryBackoff;
+
+    public DocumentJobService(DocumentService documentService,
+                              @Qualifier("documentPipelineExecutor") ThreadPoolTaskExecutor pipelineExecutor,
+                              MongoTemplate mongoTemplate,
+                              UploadStore uploadStore,
+                              AdmissionService admissionService,
+                              PipelineMetrics pipelineMetrics,
+                              NodeIdentity nodeIdentity) {
+        this.documentService = documentService;
+        this.pipelineExecutor = pipelineExecutor;
+        this.mongoTemplate = mongoTemplate;
+        this.uploadStore = uploadStore;
+        this.admissionService = admissionService;
+        this.nodeId = nodeIdentity.getId();
+        pipelineMetrics.queueGauge("documents.pipeline.queue.size", "Upload jobs waiting in the queue, all nodes",
+                this::getQueueSize);
+        pipelineMetrics.queueGauge("documents.pipeline.active", "Upload jobs being processed",
+                pipelineExecutor::getActiveCount);
+        pipelineMetrics.queueGauge("documents.jobs.claimed", "Upload jobs leased by this node", claimed::size);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        int concurrency = nodeConcurrency > 0 ? nodeConcurrency : pipelineExecutor.getMaxPoolSize();
+        slots = new Semaphore(concurrency);
+        long pollMillis = pollInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::dispatch, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatInterval.toMillis(), heartbeatInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        logger.info("Document job worker {} polling every {} with {} slots", nodeId, pollInterval, concurrency);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // leases of jobs still running here simply run out and another node picks them up
+        scheduler.shutdownNow();
+    }
+
+    public DocumentJob submit(MultipartFile file, String userId, boolean summarize) throws IOException {
+        String originalFileName = Objects.requireNonNull(file.getOriginalFilename());
+        documentService.validateFileName(originalFileName);
+        long queued = mongoTemplate.count(Query.query(Criteria.where("status").is(JobStatus.QUEUED)), DocumentJob.class);
+        if (queued >= maxQueued) {
+            throw new TaskRejectedException("Upload queue is full (" + queued + " jobs waiting)");
+        }
+        long unfinished = mongoTemplate.count(Query.query(Criteria.where("userId").is(userId)
+                .and("status").in(JobStatus.QUEUED, JobStatus.RUNNING)), DocumentJob.class);
+        if (unfinished >= perUserMaxQueued) {
+            throw new UploadRejectedException("You already have " + unfinished
+                    + " documents waiting. Please wait for some to finish.", 60);
+        }
+
+        // the estimate needs the file on disk, and GridFS reads it from there afterwards
+        Path upload = Files.createTempFile("briefify-upload-", ".pdf");
+        AdmissionService.Estimate estimate;
+        String uploadFileId;
+        try {
+            file.transferTo(upload);
+            estimate = admissionService.estimate(upload);
+            uploadFileId = uploadStore.store(new FileSystemResource(upload), originalFileName);
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+        DocumentJob job = new DocumentJob(UUID.randomUUID().toString(), userId, originalFileName, uploadFileId, summarize,
+                new ObjectId().toHexString(), estimate.pages(), estimate.ocrPages(), estimate.fastLane());
+        try {
+            mongoTemplate.insert(job);
+        } catch (RuntimeException e) {
+            uploadStore.delete(uploadFileId);
+            throw e;
+        }
+        if (!estimate.fastLane() && admissionService.isSaturated()) {
+            admissionService.deferred();
+            logger.info("Queued job {} for file {} (~{} OCR pages) behind the fast lane, OCR is saturated",
+                    job.getId(), originalFileName, estimate.ocrPages());
+        } else {
+            logger.info("Queued job {} for file {} ({} jobs waiting)", job.getId(), originalFileName, queued + 1);
+        }
+        // no need to wait for the next poll when this node has a free slot
+        scheduler.execute(this::dispatch);
+        return job;
+    }
+
+    public Optional<DocumentJob> getJob(String jobId, String userId) {
+        return Optional.ofNullable(mongoTemplate.findById(jobId, DocumentJob.class))
+                .filter(job -> job.getUserId().equals(userId));
+    }
+
+    public int getQueueSize() {
+        return (int) queuedJobs.get();
+    }
+
+    // claims jobs until this node's slots are full or the queue is empty, runs on the scheduler thread only
+    private void dispatch() {
+        if (slots == null) {
+            return;
+        }
+        try {
+            failAbandonedJobs();
+            while (slots.tryAcquire()) {
+                DocumentJob job = claim();
+                if (job == null) {
+                    slots.release();
+                    break;
+                }
+                claimed.put(job.getId(), job);
+                try {
+                    pipelineExecutor.execute(() -> runJob(job));
+                } catch (TaskRejectedException e) {
+                    // the pool is busy with batches, hand the job back without counting the attempt
+                    claimed.remove(job.getId(), job);
+                    slots.release();
+                    unclaim(job);
+                    break;
+                }
+            }
+            queuedJobs.set(mongoTemplate.count(Query.query(Criteria.where("status").is(JobStatus.QUEUED)), DocumentJob.class));
+        } catch (Exception e) {
+            logger.warn("Polling the job queue failed: {}", e.getMessage());
+        }
+    }
+
+    // fast-lane jobs first; while OCR is saturated the heavy ones are left in the queue for later
+    private DocumentJob claim() {
+        Instant now = Instant.now();
+        Criteria claimable = new Criteria().orOperator(
+                Criteria.where("status").is(JobStatus.QUEUED).and("nextAttemptAt").lte(now),
+                Criteria.where("status").is(JobStatus.RUNNING).and("leaseExpiresAt").lt(now)
+                        .and("attempts").lt(maxAttempts));
+        if (admissionService.isSaturated()) {
+            claimable = new Criteria().andOperator(claimable, Criteria.where("fastLane").is(true));
+        }
+        Query query = Query.query(claimable)
+                .with(Sort.by(Sort.Direction.DESC, "fastLane").and(Sort.by("createdAt")));
+        Update update = new Update()
+                .set("status", JobStatus.RUNNING)
+                .set("leaseOwner", nodeId)
+                .set("leaseExpiresAt", now.plus(lease))
+                .set("heartbeatAt", now)
+                .set("updatedAt", LocalDateTime.now())
+                .inc("attempts", 1);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), DocumentJob.class);
+    }
+
+    private void unclaim(DocumentJob job) {
+        mongoTemplate.updateFirst(leased(job), new Update()
+                .set("status", JobStatus.QUEUED)
+                .unset("leaseOwner")
+                .unset("leaseExpiresAt")
+                .inc("attempts", -1), DocumentJob.class);
+    }
+
+    // a job whose lease ran out on its last attempt will not be claimed again, so nobody else would finish it
+    private void failAbandonedJobs() {
+        Instant now = Instant.now();
+        Query query = Query.query(Criteria.where("status").is(JobStatus.RUNNING).and("leaseExpiresAt").lt(now)
+                .and("attempts").gte(maxAttempts));
+        DocumentJob job;
+        while ((job = mongoTemplate.findAndModify(query, new Update()
+                .set("status", JobStatus.FAILED)
+                .set("error", "Processing was interrupted on every attempt.")
+                .set("updatedAt", LocalDateTime.now())
+                .set("expiresAt", expiry())
+                .unset("leaseOwner")
+                .unset("leaseExpiresAt"), DocumentJob.class)) != null) {
+            logger.warn("Job {} lost its lease after {} attempts, giving up", job.getId(), job.getAttempts());
+            uploadStore.delete(job.getUploadFileId());
+            if (job.getTargetDocumentId() != null) {
+                documentService.releaseCheckpoints(job.getTargetDocumentId());
+            }
+        }
+    }
+
+    private void heartbeat() {
+        Instant leaseExpiresAt = Instant.now().plus(lease);
+        claimed.values().forEach(job -> {
+            job.extendLease(leaseExpiresAt);
+            save(job);
+        });
+    }
+
+    private void runJob(DocumentJob job) {
+        Path upload = null;
+        try {
+            if (job.getTargetDocumentId() == null) {
+                job.assignTargetDocumentId(new ObjectId().toHexString());
+            }
+            if (job.getDocumentId() != null || documentService.getDocumentById(job.getTargetDocumentId()).isPresent()) {
+                // an earlier attempt saved the document and died before it could mark the job done
+                job.documentSaved(job.getTargetDocumentId());
+                finishJob(job, () -> job.complete("Document saved by an earlier attempt.", expiry()));
+                return;
+            }
+            job.markRunning();
+            if (!save(job)) {
+                return;
+            }
+            upload = uploadStore.download(job.getUploadFileId());
+            String message;
+            // queued jobs already waited their turn, the ticket only keeps the OCR budget honest
+            try (AdmissionService.Ticket ticket = admissionService.admit(job.getUserId(), new AdmissionService.Estimate(
+                    job.getEstimatedPages(), job.getEstimatedOcrPages(), job.isFastLane()))) {
+                message = documentService.processDocument(job.getTargetDocumentId(), job.getOriginalFileName(),
+                        new FileSystemResource(upload), job.getUserId(), job.isSummarize(), new JobProgressListener(job));
+            }
+            finishJob(job, () -> job.complete(message, expiry()));
+            logger.info("Job {} completed on attempt {}, document {}", job.getId(), job.getAttempts(), job.getDocumentId());
+        } catch (LeaseLostException e) {
+            logger.warn("Job {} attempt {} lost its lease before saving, leaving the job to its new owner",
+                    job.getId(), job.getAttempts());
+        } catch (Exception e) {
+            if (job.getAttempts() < maxAttempts) {
+                Duration backoff = retryBackoff.multipliedBy(1L << Math.min(job.getAttempts() - 1, 10));
+                logger.warn("Job {} attempt {} failed, retrying in {}: {}", job.getId(), job.getAttempts(), backoff,
+                        e.getMessage(), e);
+                job.retryAt(e.getMessage(), Instant.now().plus(backoff));
+                save(job);
+            } else {
+                logger.error("Job {} failed after {} attempts: {}", job.getId(), job.getAttempts(), e.getMessage(), e);
+                finishJob(job, () -> job.fail(e.getMessage(), expiry()));
+            }
+        } finally {
+            // only this run's entry, a newer attempt of the same job may have replaced it already
+            claimed.remove(job.getId(), job);
+            slots.release();
+            if (upload != null) {
+                try {
+                    Files.deleteIfExists(upload);
+                } catch (IOException e) {
+                    logger.warn("Could not delete temp upload {}: {}", upload, e.getMessage());
+                }
+            }
+        }
+    }
+
+    // the upload and, unless the saved document still needs them, the page checkpoints go with the job
+    private void finishJob(DocumentJob job, Runnable transition) {
+        transition.run();
+        if (save(job)) {
+            uploadStore.delete(job.getUploadFileId());
+            documentService.releaseCheckpoints(job.getTargetDocumentId());
+        }
+    }
+
+    // Writes the job back if this node still holds its lease. Holding the job's lock keeps the written state
+    // consistent and stops a heartbeat taken before a stage change from landing after it.
+    // False means the lease is gone and the job belongs to someone else now.
+    private boolean save(DocumentJob job) {
+        synchronized (job) {
+            try {
+                if (mongoTemplate.findAndReplace(leased(job), job) != null) {
+                    return true;
+                }
+                logger.warn("Job {} is no longer leased by {}, dropping its update", job.getId(), nodeId);
+            } catch (Exception e) {
+                logger.warn("Could not save job {}: {}", job.getId(), e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    // Every claim counts an attempt, so the attempt number also tells this node's runs of the same job apart:
+    // a run whose lease ran out and was claimed again, here or elsewhere, no longer matches.
+    private Query leased(DocumentJob job) {
+        return Query.query(Criteria.where("_id").is(job.getId())
+                .and("status").is(JobStatus.RUNNING)
+                .and("leaseOwner").is(nodeId)
+                .and("attempts").is(job.getAttempts()));
+    }
+
+    // finished jobs are dropped by the TTL index on expiresAt
+    private Instant expiry() {
+        return Instant.now().plus(Duration.ofMinutes(retentionMinutes));
+    }
+
+    private static class LeaseLostException extends RuntimeException {
+    }
+
+    private class JobProgressListener implements ProcessingListener {
+        private final DocumentJob job;
+
+        JobProgressListener(DocumentJob job) {
+            this.job = job;
+        }
+
+        // Stage changes are written straight away, page progress rides along with the next heartbeat.
+        // The save stage only starts while the lease is held, so an attempt that lost it writes nothing.
+        @Override
+        public void stageStarted(JobStage stage) {
+            job.stageStarted(stage);
+            if (!save(job) && stage == JobStage.SAVE) {
+                throw new LeaseLostException();
+            }
+        }
+
+        @Override
+        public void stageProgress(JobStage stage, int completed, int total) {
+            job.stageProgress(stage, completed, total);
+        }
+
+        @Override
+        public void stageFinished(JobStage stage, StageStatus status) {
+            job.stageFinished(stage, status);
+            save(job);
+        }
+
+        @Override
+        public void documentSaved(Document document) {
+            job.documentSaved(document.getId());
+            save(job);
+        }
+    }
+}
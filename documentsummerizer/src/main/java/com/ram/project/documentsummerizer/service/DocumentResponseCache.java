@@ -0,0 +1,96 @@
+package com.ram.project.documentsummerizer.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ram.project.documentsummerizer.model.Document;
+import com.ram.project.documentsummerizer.model.DocumentResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Serialized GET /api/documents/{id} responses, with and without the extracted text, so repeat views skip
+// Mongo, GridFS and Jackson. The ETag is a hash of the JSON, which lets clients revalidate with
+// If-None-Match and get a 304. DocumentService invalidates an entry whenever the document is saved again
+// or deleted. Other nodes only find out when their entry expires, so the TTL bounds how stale they can be.
+@Service
+public class DocumentResponseCache {
+
+    // how long an invalidation is remembered, far longer than a GET spends between version() and put()
+    private static final Duration INVALIDATION_MEMORY = Duration.ofMinutes(10);
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, CachedResponse> cache;
+    private final boolean enabled;
+    // every invalidate takes the next version and stamps the document with it
+    private final AtomicLong versions = new AtomicLong();
+    private final Cache<String, Long> invalidatedAt;
+
+    public DocumentResponseCache(ObjectMapper objectMapper,
+                                 @Value("${documents.response-cache.enabled:true}") boolean enabled,
+                                 @Value("${documents.response-cache.max-mb:64}") long maxMb,
+                                 @Value("${documents.response-cache.ttl:10m}") Duration ttl) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxMb * 1024 * 1024)
+                .weigher((String key, CachedResponse response) -> response.json().length)
+                .expireAfterWrite(ttl)
+                .build();
+        this.invalidatedAt = Caffeine.newBuilder()
+                .expireAfterWrite(INVALIDATION_MEMORY)
+                .build();
+    }
+
+    public Optional<CachedResponse> get(String documentId, boolean includeText) {
+        return enabled ? Optional.ofNullable(cache.getIfPresent(key(documentId, includeText))) : Optional.empty();
+    }
+
+    // taken before the document is read from Mongo and handed back to put
+    public long version() {
+        return versions.get();
+    }
+
+    // Serializes the document as the response body, and keeps it when caching is on and the document was not
+    // invalidated since readVersion; otherwise the bytes may predate a save or delete and only this request gets them.
+    public CachedResponse put(Document document, boolean includeText, long readVersion) throws JsonProcessingException {
+        byte[] json = objectMapper.writeValueAsBytes(DocumentResponse.of(document, includeText));
+        CachedResponse response = new CachedResponse(document.getUserId(), json, etag(json));
+        if (enabled) {
+            // checked under the entry's lock, so an invalidate either comes first and is seen here, or removes this entry after
+            cache.asMap().compute(key(document.getId(), includeText), (key, current) -> {
+                Long invalidated = invalidatedAt.getIfPresent(document.getId());
+                return invalidated != null && invalidated > readVersion ? current : response;
+            });
+        }
+        return response;
+    }
+
+    public void invalidate(String documentId) {
+        invalidatedAt.put(documentId, versions.incrementAndGet());
+        cache.invalidate(key(documentId, true));
+        cache.invalidate(key(documentId, false));
+    }
+
+    private static String key(String documentId, boolean includeText) {
+        return documentId + (includeText ? ":text" : ":meta");
+    }
+
+    private static String etag(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public record CachedResponse(String userId, byte[] json, String etag) {}
+}
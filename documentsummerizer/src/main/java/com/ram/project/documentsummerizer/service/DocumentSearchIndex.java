@@ -0,0 +1,384 @@
+package com.ram.project.documentsummerizer.service;
+
+import com.ram.project.documentsummerizer.model.Document;
+import com.ram.project.documentsummerizer.model.DocumentDeletion;
+import com.ram.project.documentsummerizer.model.DocumentSearchHit;
+import com.ram.project.documentsummerizer.model.DocumentSearchResult;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.queryparser.classic.QueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Embedded Lucene index over file name, summary and extracted text. Every query is filtered on the
+// caller's userId, so users only ever search their own documents. DocumentService updates the index
+// on each save; if the index is empty at startup (first run, deleted directory) it is rebuilt from Mongo.
+// Writes become searchable right away through a near-real-time reader, the fsync'ing commit runs on a timer
+// (search.index.commit-interval) and at shutdown instead of on every save.
+// Each node keeps its own full copy. Documents saved or deleted by other nodes arrive through a poll of
+// Mongo (documents by updatedAt, deletions by their tombstones) every search.index.sync-interval. How far
+// the poll got is stored with each commit, so after a restart or crash it picks up from there.
+@Service
+public class DocumentSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentSearchIndex.class);
+
+    private static final String ID = "id";
+    private static final String USER_ID = "userId";
+    private static final String FILE_NAME = "fileName";
+    private static final String SUMMARY = "summary";
+    private static final String TEXT = "text";
+    private static final String CREATED_AT = "createdAt";
+    private static final String[] SEARCH_FIELDS = {FILE_NAME, SUMMARY, TEXT};
+    private static final Map<String, Float> FIELD_BOOSTS = Map.of(FILE_NAME, 3f, SUMMARY, 2f, TEXT, 1f);
+    private static final int PASSAGES_PER_FIELD = 2;
+    private static final String SYNCED_UP_TO = "syncedUpTo";
+
+    // offsets in the postings let the highlighter find passages without re-analyzing long texts
+    private static final FieldType TEXT_WITH_OFFSETS = new FieldType();
+    static {
+        TEXT_WITH_OFFSETS.setTokenized(true);
+        TEXT_WITH_OFFSETS.setStored(true);
+        TEXT_WITH_OFFSETS.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        TEXT_WITH_OFFSETS.freeze();
+    }
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final FSDirectory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final MongoTemplate mongoTemplate;
+    private final DocumentTextStore documentTextStore;
+    // rebuild, sync and commit all run on this one thread
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // updatedAt (or deletion time) of documents this node already indexed within the sync overlap,
+    // so the poll does not load their text again
+    private final Map<String, Instant> seen = new ConcurrentHashMap<>();
+    // newest change the index is known to contain, scheduler thread only
+    private Instant syncedUpTo;
+    private Instant committedSyncedUpTo;
+
+    @Value("${search.index.rebuild-on-empty:true}")
+    private boolean rebuildOnEmpty;
+
+    @Value("${search.index.commit-interval:30s}")
+    private Duration commitInterval;
+
+    @Value("${search.index.sync-interval:5s}")
+    private Duration syncInterval;
+
+    // how far back each poll looks past the last change it saw: writes that commit late or come from a node
+    // whose clock is behind still get picked up
+    @Value("${search.index.sync-overlap:30s}")
+    private Duration syncOverlap;
+
+    @Value("${search.index.tombstone-ttl:7d}")
+    private Duration tombstoneTtl;
+
+    public DocumentSearchIndex(@Value("${search.index.path:data/search-index}") Path indexPath,
+                               MongoTemplate mongoTemplate, DocumentTextStore documentTextStore) throws IOException {
+        this.mongoTemplate = mongoTemplate;
+        this.documentTextStore = documentTextStore;
+        this.directory = FSDirectory.open(indexPath);
+        this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer));
+        this.searcherManager = new SearcherManager(writer, null);
+        writer.getLiveCommitData().forEach(entry -> {
+            if (SYNCED_UP_TO.equals(entry.getKey())) {
+                syncedUpTo = Instant.parse(entry.getValue());
+                committedSyncedUpTo = syncedUpTo;
+            }
+        });
+        logger.info("Search index at {} holds {} documents", indexPath.toAbsolutePath(), writer.getDocStats().numDocs);
+    }
+
+    // adds or replaces the document; failures are logged, search lagging behind must not fail an upload
+    public void index(Document doc, String extractedText) {
+        try {
+            writer.updateDocument(new Term(ID, doc.getId()), toLuceneDocument(doc, extractedText));
+            if (doc.getUpdatedAt() != null) {
+                seen.put(doc.getId(), doc.getUpdatedAt());
+            }
+            searcherManager.maybeRefresh();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not index document {}: {}", doc.getId(), e.getMessage());
+        }
+    }
+
+    // the tombstone tells the other nodes
+    public void remove(String documentId) {
+        Instant deletedAt = Instant.now();
+        try {
+            mongoTemplate.save(new DocumentDeletion(documentId, deletedAt));
+        } catch (RuntimeException e) {
+            logger.warn("Could not record the deletion of document {} for other nodes: {}", documentId, e.getMessage());
+        }
+        try {
+            writer.deleteDocuments(new Term(ID, documentId));
+            seen.put(documentId, deletedAt);
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            logger.warn("Could not remove document {} from the search index: {}", documentId, e.getMessage());
+        }
+    }
+
+    public DocumentSearchResult search(String userId, String queryText, int limit) throws IOException {
+        Query query = new BooleanQuery.Builder()
+                .add(parse(queryText), BooleanClause.Occur.MUST)
+                .add(new TermQuery(new Term(USER_ID, userId)), BooleanClause.Occur.FILTER)
+                .build();
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs topDocs = searcher.search(query, limit);
+            if (topDocs.scoreDocs.length == 0) {
+                return new DocumentSearchResult(topDocs.totalHits.value, List.of());
+            }
+            UnifiedHighlighter highlighter = UnifiedHighlighter.builder(searcher, analyzer)
+                    .withFormatter(new DefaultPassageFormatter("<mark>", "</mark>", "... ", true))
+                    .build();
+            int[] passages = new int[SEARCH_FIELDS.length];
+            Arrays.fill(passages, PASSAGES_PER_FIELD);
+            Map<String, String[]> highlights = highlighter.highlightFields(SEARCH_FIELDS, query, topDocs, passages);
+
+            List<DocumentSearchHit> hits = new ArrayList<>(topDocs.scoreDocs.length);
+            for (int i = 0; i < topDocs.scoreDocs.length; i++) {
+                ScoreDoc scoreDoc = topDocs.scoreDocs[i];
+                org.apache.lucene.document.Document stored = searcher.storedFields()
+                        .document(scoreDoc.doc, Set.of(ID, FILE_NAME, CREATED_AT));
+                int hit = i;
+                List<String> snippets = Stream.of(SEARCH_FIELDS)
+                        .map(field -> highlights.get(field)[hit])
+                        .filter(Objects::nonNull)
+                        .filter(snippet -> snippet.contains("<mark>"))
+                        .toList();
+                String createdAt = stored.get(CREATED_AT);
+                hits.add(new DocumentSearchHit(stored.get(ID), stored.get(FILE_NAME),
+                        createdAt == null ? null : LocalDateTime.parse(createdAt), scoreDoc.score, snippets));
+            }
+            return new DocumentSearchResult(topDocs.totalHits.value, hits);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    // free text first; if it is not valid query syntax (a stray quote or bracket) search it literally
+    private Query parse(String queryText) {
+        MultiFieldQueryParser parser = new MultiFieldQueryParser(SEARCH_FIELDS, analyzer, FIELD_BOOSTS);
+        try {
+            return parser.parse(queryText);
+        } catch (ParseException e) {
+            try {
+                return parser.parse(QueryParser.escape(queryText));
+            } catch (ParseException escaped) {
+                throw new IllegalArgumentException("Invalid search query.");
+            }
+        }
+    }
+
+    private static org.apache.lucene.document.Document toLuceneDocument(Document doc, String extractedText) {
+        org.apache.lucene.document.Document luceneDoc = new org.apache.lucene.document.Document();
+        luceneDoc.add(new StringField(ID, doc.getId(), Field.Store.YES));
+        luceneDoc.add(new StringField(USER_ID, doc.getUserId(), Field.Store.NO));
+        luceneDoc.add(new Field(FILE_NAME, nullToEmpty(doc.getOriginalFileName()), TEXT_WITH_OFFSETS));
+        luceneDoc.add(new Field(SUMMARY, nullToEmpty(doc.getSummary()), TEXT_WITH_OFFSETS));
+        luceneDoc.add(new Field(TEXT, nullToEmpty(extractedText), TEXT_WITH_OFFSETS));
+        if (doc.getCreatedAt() != null) {
+            luceneDoc.add(new StoredField(CREATED_AT, doc.getCreatedAt().toString()));
+        }
+        return luceneDoc;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        // off the startup thread, same as the Mongo index setup
+        scheduler.execute(this::catchUp);
+        long syncMillis = syncInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::sync, syncMillis, syncMillis, TimeUnit.MILLISECONDS);
+        long commitMillis = commitInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::commit, commitMillis, commitMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // An empty index, one written before syncing was tracked, or one older than the tombstones (deletions
+    // it would miss) is rebuilt from scratch; anything else only needs the changes since its last commit.
+    private void catchUp() {
+        boolean empty = writer.getDocStats().numDocs == 0;
+        boolean stale = syncedUpTo != null && syncedUpTo.isBefore(Instant.now().minus(tombstoneTtl));
+        if (!rebuildOnEmpty) {
+            if (syncedUpTo == null) {
+                syncedUpTo = Instant.now();
+            }
+            return;
+        }
+        if (empty || syncedUpTo == null || stale) {
+            rebuild(stale);
+        }
+    }
+
+    private void rebuild(boolean clear) {
+        Instant start = Instant.now();
+        int count = 0;
+        try {
+            if (clear) {
+                writer.deleteAll();
+            }
+            try (Stream<Document> documents = mongoTemplate.stream(new org.springframework.data.mongodb.core.query.Query(), Document.class)) {
+                for (Document doc : (Iterable<Document>) documents::iterator) {
+                    writer.updateDocument(new Term(ID, doc.getId()), toLuceneDocument(doc, documentTextStore.load(doc)));
+                    count++;
+                    if (count % 500 == 0) {
+                        searcherManager.maybeRefresh();
+                    }
+                }
+            }
+            searcherManager.maybeRefresh();
+            // whatever was saved while the rebuild ran is within the next sync's overlap
+            syncedUpTo = start;
+            logger.info("Search index rebuilt from {} documents", count);
+        } catch (IOException | RuntimeException e) {
+            // the next sync tries again
+            syncedUpTo = null;
+            logger.warn("Search index rebuild stopped after {} documents: {}", count, e.getMessage());
+        }
+    }
+
+    // indexes documents saved and drops documents deleted since the last poll, on any node
+    private void sync() {
+        if (syncedUpTo == null) {
+            // the startup rebuild did not get through (Mongo unreachable?)
+            catchUp();
+            return;
+        }
+        Instant from = syncedUpTo.minus(syncOverlap);
+        Instant newest = syncedUpTo;
+        int indexed = 0;
+        int removed = 0;
+        // a tombstone older than the document's latest save is from before the id was used again
+        Map<String, Instant> savedAt = new HashMap<>();
+        try {
+            org.springframework.data.mongodb.core.query.Query changed = org.springframework.data.mongodb.core.query.Query
+                    .query(Criteria.where("updatedAt").gt(from))
+                    .with(Sort.by("updatedAt"));
+            try (Stream<Document> documents = mongoTemplate.stream(changed, Document.class)) {
+                for (Document doc : (Iterable<Document>) documents::iterator) {
+                    savedAt.put(doc.getId(), doc.getUpdatedAt());
+                    if (!doc.getUpdatedAt().equals(seen.get(doc.getId()))) {
+                        writer.updateDocument(new Term(ID, doc.getId()), toLuceneDocument(doc, documentTextStore.load(doc)));
+                        seen.put(doc.getId(), doc.getUpdatedAt());
+                        indexed++;
+                    }
+                    newest = max(newest, doc.getUpdatedAt());
+                }
+            }
+            org.springframework.data.mongodb.core.query.Query deleted = org.springframework.data.mongodb.core.query.Query
+                    .query(Criteria.where("deletedAt").gt(from));
+            for (DocumentDeletion deletion : mongoTemplate.find(deleted, DocumentDeletion.class)) {
+                Instant resaved = savedAt.get(deletion.getId());
+                boolean superseded = resaved != null && resaved.isAfter(deletion.getDeletedAt());
+                if (!superseded && !deletion.getDeletedAt().equals(seen.get(deletion.getId()))) {
+                    writer.deleteDocuments(new Term(ID, deletion.getId()));
+                    seen.put(deletion.getId(), deletion.getDeletedAt());
+                    removed++;
+                }
+                newest = max(newest, deletion.getDeletedAt());
+            }
+            syncedUpTo = newest;
+            Instant horizon = syncedUpTo.minus(syncOverlap);
+            seen.values().removeIf(at -> at.isBefore(horizon));
+            if (indexed > 0 || removed > 0) {
+                searcherManager.maybeRefresh();
+                logger.debug("Search index sync: {} documents indexed, {} removed", indexed, removed);
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Search index sync failed: {}", e.getMessage());
+        }
+    }
+
+    private static Instant max(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    // Durability only, searches already see the changes. The sync position goes into the same commit, so
+    // whatever a crash loses since the last one is fetched from Mongo again on the next start.
+    private void commit() {
+        try {
+            if (syncedUpTo != null && !syncedUpTo.equals(committedSyncedUpTo)) {
+                writer.setLiveCommitData(Map.of(SYNCED_UP_TO, syncedUpTo.toString()).entrySet());
+            }
+            if (writer.hasUncommittedChanges()) {
+                writer.commit();
+                committedSyncedUpTo = syncedUpTo;
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not commit the search index: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        // no interrupts, they would close the IndexWriter's channels under it
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        commit();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+}
@@ -1,24 +1,45 @@
 package com.ram.project.documentsummerizer.service;
 
 import com.ram.project.documentsummerizer.model.Document;
+import com.ram.project.documentsummerizer.model.DocumentSearchResult;
+import com.ram.project.documentsummerizer.model.DocumentSummary;
+import com.ram.project.documentsummerizer.model.DocumentSummaryPage;
+import com.ram.project.documentsummerizer.model.ExtractionCacheEntry;
+import com.ram.project.documentsummerizer.model.JobStage;
+import com.ram.project.documentsummerizer.model.StageStatus;
 import com.ram.project.documentsummerizer.repository.DocumentRepository;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import org.apache.pdfbox.rendering.PDFRenderer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import net.sourceforge.tess4j.Tesseract;
 import net.sourceforge.tess4j.TesseractException;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.regex.Pattern;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,122 +55,625 @@ public class DocumentService {
     private static final Logger logger = LoggerFactory.getLogger(DocumentService.class);
 
     private final DocumentRepository documentRepository;
-    private final GroqService groqService;
-
-    private static final Pattern MEANINGFUL_TEXT_PATTERN = Pattern.compile("[a-zA-Z0-9]{3,}");
-    private static final int MIN_TEXT_LENGTH_FOR_SUMMARY_PDFBOX = 500;
-    private static final int MIN_TEXT_LENGTH_FOR_SUMMARY_OCR = 100;
+    private final SummarizationProvider summarizationProvider;
+    private final OcrService ocrService;
+    private final ExtractionCache extractionCache;
+    private final ChunkedSummarizer chunkedSummarizer;
+    private final DocumentTextStore documentTextStore;
+    private final PipelineMetrics pipelineMetrics;
+    private final DocumentSearchIndex documentSearchIndex;
+    private final PageCheckpointStore pageCheckpointStore;
+    private final UploadStore uploadStore;
+    private final AdmissionService admissionService;
+    private final DocumentResponseCache documentResponseCache;
+
+    static final int MIN_TEXT_LENGTH_FOR_SUMMARY_PDFBOX = 500;
+    static final int MIN_TEXT_LENGTH_FOR_SUMMARY_OCR = 100;
+    static final int MIN_PAGE_TEXT_LENGTH_NATIVE = 100;
     private static final int SUMMARY_INPUT_MAX_LENGTH = 20000;
 
-    public DocumentService(DocumentRepository documentRepository, GroqService groqService) {
+    @Value("${documents.pdf.max-main-memory-mb:64}")
+    private long pdfMaxMainMemoryMb;
+
+    @Value("${documents.reprocess.lock-timeout:1h}")
+    private Duration reprocessLockTimeout;
+
+    public DocumentService(DocumentRepository documentRepository, SummarizationProvider summarizationProvider,
+                           OcrService ocrService, ExtractionCache extractionCache, ChunkedSummarizer chunkedSummarizer,
+                           DocumentTextStore documentTextStore, PipelineMetrics pipelineMetrics,
+                           DocumentSearchIndex documentSearchIndex, PageCheckpointStore pageCheckpointStore,
+                           UploadStore uploadStore, AdmissionService admissionService,
+                           DocumentResponseCache documentResponseCache) {
         this.documentRepository = documentRepository;
-        this.groqService = groqService;
+        this.summarizationProvider = summarizationProvider;
+        this.ocrService = ocrService;
+        this.extractionCache = extractionCache;
+        this.chunkedSummarizer = chunkedSummarizer;
+        this.documentTextStore = documentTextStore;
+        this.pipelineMetrics = pipelineMetrics;
+        this.documentSearchIndex = documentSearchIndex;
+        this.pageCheckpointStore = pageCheckpointStore;
+        this.uploadStore = uploadStore;
+        this.admissionService = admissionService;
+        this.documentResponseCache = documentResponseCache;
     }
 
-    public String processAndSaveDocument(MultipartFile file) throws IOException, TesseractException {
+    public String processAndSaveDocument(MultipartFile file, boolean summarize) throws IOException, TesseractException {
         String originalFileName = Objects.requireNonNull(file.getOriginalFilename());
-        String extractedText = "";
-        String summary = "Summary could not be generated.";
-        StringBuilder responseMessageBuilder = new StringBuilder();
-        String processingStatus = "Processing failed.";
+        validateFileName(originalFileName);
+        // multipart parts are already spilled to disk, transferTo just moves the part file where PDFBox can read it
+        Path upload = Files.createTempFile("briefify-upload-", ".pdf");
+        try {
+            file.transferTo(upload);
+            String userId = resolveCurrentUserId();
+            // estimated on the PDF the pipeline loads anyway; throws UploadRejectedException (429) when OCR
+            // capacity or the user's quota is used up. An extraction cache hit needs no admission.
+            AtomicReference<AdmissionService.Ticket> ticket = new AtomicReference<>();
+            try {
+                return processDocument(null, originalFileName, new FileSystemResource(upload), userId, summarize,
+                        ProcessingListener.NONE, this::persist,
+                        pdf -> ticket.set(admissionService.tryAdmit(userId, admissionService.estimate(pdf))));
+            } finally {
+                if (ticket.get() != null) {
+                    ticket.get().close();
+                }
+            }
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
 
+    public void validateFileName(String originalFileName) {
         if (!originalFileName.toLowerCase().endsWith(".pdf")) {
             throw new IllegalArgumentException("Only PDF files are allowed.");
         }
+    }
 
-        boolean pdfBoxExtractionPerformed = false;
-        boolean textSufficientForSummary = false;
+    // Runs extraction, OCR fallback, summarization and save. The PDF is loaded once and routed per
+    // page: pages with usable native text keep it, only image-only or weak pages go to OCR.
+    // With summarize=false a document with usable text is saved without a summary, to be streamed later.
+    // The document is saved under documentId, so running the same upload again overwrites it, and OCR resumes
+    // from the pages an earlier run checkpointed under that id.
+    public String processDocument(String documentId, String originalFileName, InputStreamSource source, String userId,
+                                  boolean summarize, ProcessingListener listener) throws IOException, TesseractException {
+        return processDocument(documentId, originalFileName, source, userId, summarize, listener, this::persist, pdf -> {});
+    }
 
-        try (InputStream is = file.getInputStream()) {
-            extractedText = extractTextFromNativePdf(is);
-            logger.info("PDFBox extracted text length: {}", extractedText.length());
-            pdfBoxExtractionPerformed = true;
+    // writer decides how the finished Document is written: saved right away, or staged for a bulk insert by batches
+    String processDocument(String originalFileName, InputStreamSource source, String userId, boolean summarize,
+                           ProcessingListener listener, Consumer<Document> writer,
+                           Consumer<PDDocument> admission) throws IOException, TesseractException {
+        return processDocument(null, originalFileName, source, userId, summarize, listener, writer, admission);
+    }
 
-            if (isTextQualitySufficient(extractedText, MIN_TEXT_LENGTH_FOR_SUMMARY_PDFBOX)) {
-                textSufficientForSummary = true;
-                processingStatus = "Processed via PDFBox (native text).";
-                logger.info("PDFBox text deemed sufficient. Skipping OCR.");
-            } else {
-                logger.warn("PDFBox extracted text insufficient. Attempting OCR.");
+    // admission sees the loaded PDF before any extraction and may refuse it by throwing; a null documentId gets a fresh one
+    private String processDocument(String documentId, String originalFileName, InputStreamSource source, String userId,
+                                   boolean summarize, ProcessingListener listener, Consumer<Document> writer,
+                                   Consumer<PDDocument> admission) throws IOException, TesseractException {
+        String contentHash = extractionCache.isEnabled() ? extractionCache.hash(source) : null;
+        if (contentHash != null) {
+            Optional<ExtractionCacheEntry> cached = extractionCache.get(contentHash);
+            if (cached.isPresent()) {
+                logger.info("Extraction cache hit for {} ({}), skipping extraction and summarization.",
+                        originalFileName, contentHash);
+                return saveFromCache(documentId, originalFileName, userId, cached.get(), listener, writer);
             }
+        }
 
-        } catch (IOException e) {
-            logger.warn("PDFBox extraction failed: {}", e.getMessage());
-            pdfBoxExtractionPerformed = true;
+        // the id is assigned up front so OCR pages can be checkpointed under it before the document is saved
+        Document doc = new Document(originalFileName, null);
+        doc.setId(documentId != null ? documentId : new ObjectId().toHexString());
+        doc.setUserId(userId);
+        Map<Integer, String> checkpoints = documentId != null ? pageCheckpointStore.load(documentId) : Map.of();
+        StringBuilder responseMessageBuilder = new StringBuilder();
+        Extraction extraction = extract(doc, source, checkpoints, listener, responseMessageBuilder, admission);
+        boolean summaryGenerated = summarizeStage(doc, extraction, summarize, listener, responseMessageBuilder);
+
+        saveDocument(doc, extraction.text(), source, listener, writer);
+        if (contentHash != null && summaryGenerated) {
+            extractionCache.put(contentHash, extraction.text(), doc.getSummary());
         }
 
-        if (!textSufficientForSummary) {
-            logger.warn("Attempting OCR as fallback.");
-            responseMessageBuilder.append("Warning: PDFBox extraction was insufficient. Attempted OCR.\n");
-            processingStatus = "Attempting OCR.";
+        return buildResponseMessage(responseMessageBuilder, originalFileName, extraction.processingStatus(), extraction.text(),
+                doc.getSummary() == null ? "(pending, document id " + doc.getId() + ")" : doc.getSummary());
+    }
+
+    // Finishes what an earlier run left undone. Failed extraction or OCR reruns from the kept PDF, where native
+    // text is re-read (cheap) and only OCR pages without a checkpoint are recognised; a failed or deferred
+    // summary is generated from the stored text. One reprocess per document at a time, on any node, and the
+    // OCR goes through admission like a synchronous upload (UploadRejectedException when it has to wait).
+    public String reprocessDocument(Document doc) throws IOException {
+        if (!needsReprocessing(doc)) {
+            throw new IllegalStateException("Every stage of this document is already done.");
+        }
+        Instant now = Instant.now();
+        if (documentRepository.lockForReprocess(doc.getId(), now, now.plus(reprocessLockTimeout)) == 0) {
+            throw new IllegalStateException("This document is already being reprocessed.");
+        }
+        AtomicReference<AdmissionService.Ticket> ticket = new AtomicReference<>();
+        try {
+            return reprocess(doc, ticket);
+        } finally {
+            if (ticket.get() != null) {
+                ticket.get().close();
+            }
+            try {
+                documentRepository.unlockReprocess(doc.getId());
+            } catch (RuntimeException e) {
+                logger.warn("Could not release the reprocess lock of document {}, it runs out on its own: {}",
+                        doc.getId(), e.getMessage());
+            }
+        }
+    }
 
-            try (InputStream isForOcr = file.getInputStream()) {
-                extractedText = performOcrOnPdfStream(isForOcr);
-                logger.info("OCR extracted text length: {}", extractedText.length());
-                processingStatus = "Document processed via OCR.";
+    private String reprocess(Document doc, AtomicReference<AdmissionService.Ticket> ticket) throws IOException {
+        StringBuilder responseMessageBuilder = new StringBuilder();
+        Extraction extraction;
+        String previousTextId = null;
+        if (isTextIncomplete(doc)) {
+            if (doc.getSourceFileId() == null) {
+                throw new IllegalStateException("The original PDF of this document is no longer stored, upload it again.");
+            }
+            Map<Integer, String> checkpoints = pageCheckpointStore.load(doc.getId());
+            logger.info("Reprocessing document {} from its PDF, {} OCR page(s) checkpointed", doc.getId(), checkpoints.size());
+            Path source = uploadStore.download(doc.getSourceFileId());
+            try {
+                extraction = extract(doc, new FileSystemResource(source), checkpoints, ProcessingListener.NONE,
+                        responseMessageBuilder, pdf -> {
+                            // checkpointed pages are not recognised again
+                            AdmissionService.Estimate estimate = admissionService.estimate(pdf);
+                            ticket.set(admissionService.tryAdmit(doc.getUserId(), new AdmissionService.Estimate(estimate.pages(),
+                                    Math.max(0, estimate.ocrPages() - checkpoints.size()), estimate.fastLane())));
+                        });
+            } finally {
+                Files.deleteIfExists(source);
+            }
+            // the new text gets a blob of its own, the old one goes once the document points at it
+            previousTextId = doc.getExtractedTextId();
+            doc.setExtractedTextId(null);
+        } else {
+            logger.info("Reprocessing summary of document {}", doc.getId());
+            extraction = new Extraction(loadExtractedText(doc), true, "Reused the extracted text of the earlier run.");
+        }
+        summarizeStage(doc, extraction, true, ProcessingListener.NONE, responseMessageBuilder);
 
-                if (isTextQualitySufficient(extractedText, MIN_TEXT_LENGTH_FOR_SUMMARY_OCR)) {
+        saveDocument(doc, extraction.text(), null, ProcessingListener.NONE, this::persist);
+        if (previousTextId != null) {
+            documentTextStore.delete(previousTextId);
+        }
+        return buildResponseMessage(responseMessageBuilder, doc.getOriginalFileName(), extraction.processingStatus(),
+                extraction.text(), doc.getSummary());
+    }
+
+    public static boolean needsReprocessing(Document doc) {
+        return isTextIncomplete(doc)
+                || doc.getSummaryStatus() == StageStatus.FAILED
+                || doc.getSummaryStatus() == StageStatus.PENDING;
+    }
+
+    private static boolean isTextIncomplete(Document doc) {
+        return doc.getNativeStatus() == StageStatus.FAILED || doc.getOcrStatus() == StageStatus.FAILED;
+    }
+
+    // Native extraction plus OCR fallback, recording the outcome of each on doc. Pages found in checkpoints
+    // are taken as they are; every page recognised here is checkpointed as soon as it is done.
+    private Extraction extract(Document doc, InputStreamSource source, Map<Integer, String> checkpoints,
+                               ProcessingListener listener, StringBuilder responseMessageBuilder,
+                               Consumer<PDDocument> admission) {
+        String originalFileName = doc.getOriginalFileName();
+        String extractedText = "";
+        String processingStatus = "Processing failed.";
+        boolean textSufficientForSummary = false;
+
+        listener.stageStarted(JobStage.EXTRACTION);
+        long loadStart = System.nanoTime();
+        try (PDDocument document = loadPdf(source)) {
+            pipelineMetrics.recordStage("pdf_load", loadStart);
+            admission.accept(document);
+            long extractionStart = System.nanoTime();
+            String[] pageTexts = extractTextFromNativePdf(document);
+            pipelineMetrics.recordStage("text_extraction", extractionStart);
+            // each page is scored once, document-level scores are summed from the page scores
+            long qualityStart = System.nanoTime();
+            TextQualityAnalyzer.Score[] pageScores = new TextQualityAnalyzer.Score[pageTexts.length];
+            List<Integer> ocrPages = new ArrayList<>();
+            for (int i = 0; i < pageTexts.length; i++) {
+                pageScores[i] = TextQualityAnalyzer.analyze(pageTexts[i]);
+                if (!pageScores[i].isSufficient(MIN_PAGE_TEXT_LENGTH_NATIVE)) {
+                    ocrPages.add(i);
+                }
+            }
+            TextQualityAnalyzer.Score nativeScore = TextQualityAnalyzer.join(Arrays.asList(pageScores));
+            pipelineMetrics.recordStage("quality_check", qualityStart);
+            extractedText = String.join("\n", pageTexts);
+            logger.info("PDFBox extracted text length: {}, pages needing OCR: {}/{}, garbage lines: {}, non-ASCII letters: {}",
+                    extractedText.length(), ocrPages.size(), pageTexts.length,
+                    String.format("%.2f", nativeScore.garbageLineRatio()), String.format("%.2f", nativeScore.nonAsciiLetterRatio()));
+            doc.setPageCount(pageTexts.length);
+            doc.setNativeStatus(StageStatus.DONE);
+            listener.stageFinished(JobStage.EXTRACTION, StageStatus.DONE);
+
+            if (ocrPages.isEmpty()) {
+                if (nativeScore.isSufficient(MIN_TEXT_LENGTH_FOR_SUMMARY_PDFBOX)) {
                     textSufficientForSummary = true;
+                    processingStatus = "Processed via PDFBox (native text).";
+                    logger.info("PDFBox text deemed sufficient. Skipping OCR.");
                 } else {
-                    processingStatus = "OCR yielded insufficient text.";
-                    responseMessageBuilder.append("Warning: OCR text is too weak for summarization.\n");
+                    // every page looked fine on its own but the document as a whole is too thin, OCR it all
+                    logger.warn("PDFBox extracted text insufficient. Attempting OCR.");
+                    for (int i = 0; i < pageTexts.length; i++) {
+                        ocrPages.add(i);
+                    }
                 }
+            }
 
-                if (isLikelyHandwrittenOrPoorQuality(extractedText, originalFileName)) {
-                    responseMessageBuilder.append("Warning: Detected potential handwriting or low-quality scan.\n");
+            if (!ocrPages.isEmpty()) {
+                logger.warn("Attempting OCR as fallback on {} of {} pages.", ocrPages.size(), pageTexts.length);
+                pipelineMetrics.ocrFallback(ocrPages.size() == pageTexts.length);
+                listener.stageStarted(JobStage.OCR);
+                responseMessageBuilder.append("Warning: PDFBox extraction was insufficient on ")
+                        .append(ocrPages.size()).append(" of ").append(pageTexts.length)
+                        .append(" page(s). Attempted OCR.\n");
+
+                // filled on this thread in page order, from the checkpoints first and then as pages are recognised
+                Map<Integer, String> ocrTexts = new TreeMap<>();
+                ocrPages.stream().filter(checkpoints::containsKey).forEach(page -> ocrTexts.put(page, checkpoints.get(page)));
+                List<Integer> remaining = ocrPages.stream().filter(page -> !ocrTexts.containsKey(page)).toList();
+                if (!ocrTexts.isEmpty()) {
+                    logger.info("Resuming OCR with {} checkpointed page(s), {} left to recognise.", ocrTexts.size(), remaining.size());
                 }
-
-            } catch (TesseractException te) {
-                logger.error("OCR failed: {}", te.getMessage(), te);
-                extractedText = "OCR failed to extract readable text. Reason: " + te.getMessage();
-                processingStatus = "OCR failed.";
-                responseMessageBuilder.append("Error: OCR process failed.\n");
-            } catch (IOException e) {
-                logger.error("OCR read error: {}", e.getMessage(), e);
-                extractedText = "Failed to re-read PDF file for OCR.";
-                processingStatus = "OCR input failure.";
-                responseMessageBuilder.append("Error: Could not process file for OCR.\n");
+                try {
+                    if (!remaining.isEmpty()) {
+                        ocrService.ocrPages(document, remaining, listener, (page, text) -> {
+                            pageCheckpointStore.save(doc.getId(), page, text);
+                            ocrTexts.put(page, text);
+                        });
+                    }
+                    List<TextQualityAnalyzer.Score> ocrScores = new ArrayList<>(ocrTexts.size());
+                    ocrTexts.forEach((page, text) -> {
+                        TextQualityAnalyzer.Score score = TextQualityAnalyzer.analyze(text);
+                        ocrScores.add(score);
+                        if (!text.isBlank()) {
+                            pageTexts[page] = text;
+                            pageScores[page] = score;
+                        }
+                    });
+                    extractedText = String.join("\n", pageTexts);
+                    TextQualityAnalyzer.Score ocrScore = TextQualityAnalyzer.join(ocrScores);
+                    logger.info("OCR extracted text length: {}", ocrScore.length());
+                    processingStatus = ocrPages.size() == pageTexts.length
+                            ? "Document processed via OCR."
+                            : "Processed via PDFBox with OCR on " + ocrPages.size() + " page(s).";
+
+                    if (TextQualityAnalyzer.join(Arrays.asList(pageScores)).isSufficient(MIN_TEXT_LENGTH_FOR_SUMMARY_OCR)) {
+                        textSufficientForSummary = true;
+                    } else {
+                        processingStatus = "OCR yielded insufficient text.";
+                        responseMessageBuilder.append("Warning: OCR text is too weak for summarization.\n");
+                    }
+
+                    if (ocrScore.isLikelyHandwrittenOrPoorQuality(originalFileName)) {
+                        responseMessageBuilder.append("Warning: Detected potential handwriting or low-quality scan.\n");
+                    }
+                    doc.setOcrStatus(StageStatus.DONE);
+                    listener.stageFinished(JobStage.OCR, StageStatus.DONE);
+
+                } catch (TesseractException | IOException te) {
+                    logger.error("OCR failed: {}", te.getMessage(), te);
+                    // keep what was recognised, those pages are checkpointed and a reprocess resumes after them
+                    ocrTexts.forEach((page, text) -> {
+                        if (!text.isBlank()) {
+                            pageTexts[page] = text;
+                        }
+                    });
+                    extractedText = String.join("\n", pageTexts);
+                    if (extractedText.isBlank()) {
+                        extractedText = "OCR failed to extract readable text. Reason: " + te.getMessage();
+                    }
+                    processingStatus = "OCR failed.";
+                    responseMessageBuilder.append("Error: OCR process failed after ").append(ocrTexts.size())
+                            .append(" of ").append(ocrPages.size())
+                            .append(" page(s). Reprocess the document to resume from there.\n");
+                    doc.setOcrStatus(StageStatus.FAILED);
+                    listener.stageFinished(JobStage.OCR, StageStatus.FAILED);
+                }
+            } else {
+                doc.setOcrStatus(StageStatus.SKIPPED);
+                listener.stageFinished(JobStage.OCR, StageStatus.SKIPPED);
             }
+
+        } catch (IOException e) {
+            logger.error("PDF read error: {}", e.getMessage(), e);
+            extractedText = "Failed to read PDF file.";
+            processingStatus = "PDF input failure.";
+            responseMessageBuilder.append("Error: Could not read the PDF file.\n");
+            doc.setNativeStatus(StageStatus.FAILED);
+            listener.stageFinished(JobStage.EXTRACTION, StageStatus.FAILED);
         }
+        return new Extraction(extractedText, textSufficientForSummary, processingStatus);
+    }
+
+    // sets the summary and its status on doc, true when a summary was generated
+    private boolean summarizeStage(Document doc, Extraction extraction, boolean summarize, ProcessingListener listener,
+                                   StringBuilder responseMessageBuilder) {
+        String extractedText = extraction.text();
+        if (extraction.sufficientForSummary() && !summarize) {
+            // left for GET /api/documents/{id}/summary/stream to generate and save
+            doc.setSummary(null);
+            doc.setSummaryStatus(StageStatus.PENDING);
+            responseMessageBuilder.append("Note: Summary deferred, stream it from /api/documents/{id}/summary/stream.\n");
+            listener.stageFinished(JobStage.SUMMARIZATION, StageStatus.SKIPPED);
+            return false;
+        }
+        if (!extraction.sufficientForSummary()) {
+            doc.setSummary("Summary not generated due to insufficient text.");
+            // with part of the text missing it is too early to tell, a reprocess summarizes once the text is complete
+            doc.setSummaryStatus(isTextIncomplete(doc) ? StageStatus.PENDING : StageStatus.SKIPPED);
+            listener.stageFinished(JobStage.SUMMARIZATION, StageStatus.SKIPPED);
+            return false;
+        }
+
+        listener.stageStarted(JobStage.SUMMARIZATION);
+        long summarizationStart = System.nanoTime();
+        boolean summaryGenerated = false;
+        try {
+            doc.setSummary(summarize(extractedText).block());
+            doc.setSummaryStatus(StageStatus.DONE);
+            summaryGenerated = true;
+            listener.stageFinished(JobStage.SUMMARIZATION, StageStatus.DONE);
+        } catch (Exception e) {
+            logger.error("Summarization failed: {}", e.getMessage(), e);
+            doc.setSummary("Failed to generate summary.");
+            doc.setSummaryStatus(StageStatus.FAILED);
+            responseMessageBuilder.append("Error: Summarization failed.\n");
+            listener.stageFinished(JobStage.SUMMARIZATION, StageStatus.FAILED);
+        } finally {
+            pipelineMetrics.recordStage("summarization", summarizationStart);
+        }
+
+        if (isTruncatedForSummary(extractedText)) {
+            pipelineMetrics.summaryTruncated();
+            responseMessageBuilder.append("Warning: Text was truncated due to length.\n");
+        }
+        return summaryGenerated;
+    }
+
+    // Streams the summary of a document whose summary was deferred and saves it once the stream completes.
+    public Flux<String> streamAndSaveSummary(Document document) {
+        StringBuilder fullSummary = new StringBuilder();
+        return Mono.fromCallable(() -> loadExtractedText(document))
+                .subscribeOn(Schedulers.boundedElastic())
+                // kept on the document so the search index gets the text along with the new summary
+                .doOnNext(document::setExtractedText)
+                .flatMapMany(this::streamSummary)
+                .doOnNext(fullSummary::append)
+                .concatWith(Mono.<String>fromRunnable(() -> {
+                    document.setSummary(fullSummary.toString());
+                    document.setSummaryStatus(StageStatus.DONE);
+                    persist(document);
+                    logger.info("Streamed summary saved for document {}", document.getId());
+                }).subscribeOn(Schedulers.boundedElastic()));
+    }
+
+    private boolean isTruncatedForSummary(String text) {
+        return text.length() > SUMMARY_INPUT_MAX_LENGTH && !chunkedSummarizer.isEnabled();
+    }
 
-        if (textSufficientForSummary) {
-            String textForSummary = extractedText.length() > SUMMARY_INPUT_MAX_LENGTH
-                    ? extractedText.substring(0, SUMMARY_INPUT_MAX_LENGTH) + "\n\n... [Document truncated for summarization]"
-                    : extractedText;
+    private String summaryInput(String text) {
+        return isTruncatedForSummary(text)
+                ? text.substring(0, SUMMARY_INPUT_MAX_LENGTH) + "\n\n... [Document truncated for summarization]"
+                : text;
+    }
+
+    // long documents go through map-reduce when it is enabled, otherwise they are truncated
+    private Mono<String> summarize(String text) {
+        return text.length() > SUMMARY_INPUT_MAX_LENGTH && chunkedSummarizer.isEnabled()
+                ? chunkedSummarizer.summarize(text)
+                : summarizationProvider.summarize(summaryInput(text));
+    }
+
+    private Flux<String> streamSummary(String text) {
+        return text.length() > SUMMARY_INPUT_MAX_LENGTH && chunkedSummarizer.isEnabled()
+                ? chunkedSummarizer.streamSummary(text)
+                : summarizationProvider.streamSummary(summaryInput(text));
+    }
 
+    private String saveFromCache(String documentId, String originalFileName, String userId, ExtractionCacheEntry cached,
+                                 ProcessingListener listener, Consumer<Document> writer) {
+        listener.stageFinished(JobStage.EXTRACTION, StageStatus.SKIPPED);
+        listener.stageFinished(JobStage.OCR, StageStatus.SKIPPED);
+        listener.stageFinished(JobStage.SUMMARIZATION, StageStatus.SKIPPED);
+        Document doc = new Document(originalFileName, null);
+        doc.setId(documentId);
+        doc.setUserId(userId);
+        doc.setSummary(cached.getSummary());
+        // only fully processed documents are cached
+        doc.setNativeStatus(StageStatus.DONE);
+        doc.setOcrStatus(StageStatus.SKIPPED);
+        doc.setSummaryStatus(StageStatus.DONE);
+        saveDocument(doc, cached.getExtractedText(), null, listener, writer);
+        return buildResponseMessage(new StringBuilder(), originalFileName,
+                "Identical document processed before, reused its text and summary.",
+                cached.getExtractedText(), cached.getSummary());
+    }
+
+    // While the text is incomplete the original PDF is kept for a reprocess (source is null when it is
+    // already stored or not needed); once it is complete the PDF and the page checkpoints go.
+    private void saveDocument(Document doc, String extractedText, InputStreamSource source,
+                              ProcessingListener listener, Consumer<Document> writer) {
+        doc.setExtractedText(extractedText);
+        listener.stageStarted(JobStage.SAVE);
+        String obsoleteSourceId = null;
+        if (isTextIncomplete(doc) && doc.getSourceFileId() == null && source != null) {
             try {
-                summary = groqService.summarizeText(textForSummary);
-            } catch (Exception e) {
-                logger.error("Summarization failed: {}", e.getMessage(), e);
-                summary = "Failed to generate summary.";
-                responseMessageBuilder.append("Error: Summarization failed.\n");
+                doc.setSourceFileId(uploadStore.store(source, doc.getOriginalFileName()));
+            } catch (IOException e) {
+                logger.warn("Could not keep the PDF of document {} for a reprocess: {}", doc.getId(), e.getMessage());
             }
+        } else if (!isTextIncomplete(doc)) {
+            obsoleteSourceId = doc.getSourceFileId();
+            doc.setSourceFileId(null);
+        }
+        writer.accept(doc);
+        listener.stageFinished(JobStage.SAVE, StageStatus.DONE);
+        listener.documentSaved(doc);
+        if (doc.getOcrStatus() == StageStatus.DONE) {
+            pageCheckpointStore.delete(doc.getId());
+        }
+        if (obsoleteSourceId != null) {
+            uploadStore.delete(obsoleteSourceId);
+        }
+    }
 
-            if (extractedText.length() > SUMMARY_INPUT_MAX_LENGTH) {
-                responseMessageBuilder.append("Warning: Text was truncated due to length.\n");
-            }
+    // The text goes to GridFS the first time a document is saved (legacy inline documents get moved
+    // over on their next save), the document itself only keeps the reference and the length.
+    private void persist(Document doc) {
+        String extractedText = doc.getExtractedText();
+        storeText(doc);
+        doc.setExtractedText(null);
+        doc.setUpdatedAt(Instant.now());
+        long saveStart = System.nanoTime();
+        try {
+            documentRepository.save(doc);
+            pipelineMetrics.recordStage("mongo_save", saveStart);
+        } finally {
+            doc.setExtractedText(extractedText);
+        }
+        documentResponseCache.invalidate(doc.getId());
+        documentSearchIndex.index(doc, extractedText);
+    }
 
-        } else {
-            summary = "Summary not generated due to insufficient text.";
+    // Once the job that owns documentId is over, its page checkpoints are only worth keeping for a saved document
+    // whose OCR failed, which a reprocess resumes from. Kept when that cannot be told right now.
+    public void releaseCheckpoints(String documentId) {
+        Optional<Document> saved;
+        try {
+            saved = documentRepository.findById(documentId);
+        } catch (RuntimeException e) {
+            logger.warn("Could not look up document {}, keeping its page checkpoints: {}", documentId, e.getMessage());
+            return;
+        }
+        if (saved.isEmpty() || saved.get().getOcrStatus() != StageStatus.FAILED) {
+            pageCheckpointStore.delete(documentId);
+        }
+    }
+
+    // the document and everything stored alongside it: text blob, kept PDF, page checkpoints, index entry
+    public void deleteDocument(Document doc) {
+        documentRepository.deleteById(doc.getId());
+        documentResponseCache.invalidate(doc.getId());
+        documentSearchIndex.remove(doc.getId());
+        if (doc.getExtractedTextId() != null) {
+            documentTextStore.delete(doc.getExtractedTextId());
+        }
+        if (doc.getSourceFileId() != null) {
+            uploadStore.delete(doc.getSourceFileId());
         }
+        pageCheckpointStore.delete(doc.getId());
+        logger.info("Deleted document {}", doc.getId());
+    }
 
-        Document doc = new Document(originalFileName, extractedText);
-        doc.setSummary(summary);
+    // From a file PDFBox reads pages on demand instead of copying the whole upload into heap first, and
+    // the parsed objects spill to a scratch file past pdfMaxMainMemoryMb. Plain streams still work, they
+    // just get buffered through the same memory setting.
+    private PDDocument loadPdf(InputStreamSource source) throws IOException {
+        MemoryUsageSetting memory = MemoryUsageSetting.setupMixed(pdfMaxMainMemoryMb * 1024 * 1024);
+        if (source instanceof FileSystemResource resource) {
+            return PDDocument.load(resource.getFile(), memory);
+        }
+        try (InputStream is = source.getInputStream()) {
+            return PDDocument.load(is, memory);
+        }
+    }
 
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication != null && authentication.isAuthenticated() && !(authentication.getPrincipal() instanceof String)) {
-            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-            if (userDetails instanceof User) {
-                doc.setUserId(((User) userDetails).getId());
-            } else {
-                doc.setUserId(userDetails.getUsername());
+    private void storeText(Document doc) {
+        String extractedText = doc.getExtractedText();
+        if (extractedText != null && doc.getExtractedTextId() == null) {
+            long storeStart = System.nanoTime();
+            doc.setExtractedTextId(documentTextStore.store(extractedText, doc.getOriginalFileName()));
+            doc.setExtractedTextLength(extractedText.length());
+            pipelineMetrics.recordStage("text_store", storeStart);
+        }
+    }
+
+    // Batch writer, first half: the id is assigned here so the response message can name it and the
+    // text blob is stored, but the Document itself waits for insertAll.
+    void stageForInsert(Document doc) {
+        if (doc.getId() == null) {
+            doc.setId(new ObjectId().toHexString());
+        }
+        storeText(doc);
+    }
+
+    // second half: one insertMany for the whole group of staged documents
+    void insertAll(List<Document> docs) {
+        List<String> texts = docs.stream().map(Document::getExtractedText).toList();
+        Instant now = Instant.now();
+        docs.forEach(doc -> {
+            doc.setExtractedText(null);
+            doc.setUpdatedAt(now);
+        });
+        long saveStart = System.nanoTime();
+        try {
+            documentRepository.insert(docs);
+            pipelineMetrics.recordStage("mongo_save", saveStart);
+        } finally {
+            for (int i = 0; i < docs.size(); i++) {
+                docs.get(i).setExtractedText(texts.get(i));
             }
-        } else {
-            doc.setUserId("anonymous");
         }
+        for (int i = 0; i < docs.size(); i++) {
+            documentSearchIndex.index(docs.get(i), texts.get(i));
+        }
+    }
+
+    // fallback for a group whose insertAll failed: save() upserts, so documents the ordered insertMany did
+    // write before it stopped are simply written again
+    void saveStaged(Document doc) {
+        persist(doc);
+    }
+
+    // a staged document that could not be written: drop the text blob, kept PDF and checkpoints stored for it,
+    // unless it reached Mongo after all (or that cannot be told right now, a leaked blob beats a broken document)
+    void discardStaged(Document doc) {
+        try {
+            if (documentRepository.existsById(doc.getId())) {
+                return;
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not check whether document {} was saved, keeping its stored text: {}", doc.getId(), e.getMessage());
+            return;
+        }
+        if (doc.getExtractedTextId() != null) {
+            try {
+                documentTextStore.delete(doc.getExtractedTextId());
+            } catch (RuntimeException e) {
+                logger.warn("Could not delete text {} of unsaved document {}: {}", doc.getExtractedTextId(), doc.getId(), e.getMessage());
+            }
+        }
+        if (doc.getSourceFileId() != null) {
+            uploadStore.delete(doc.getSourceFileId());
+        }
+        pageCheckpointStore.delete(doc.getId());
+    }
+
+    public String loadExtractedText(Document doc) throws IOException {
+        return documentTextStore.load(doc);
+    }
+
+    // decompressing stream for GET /api/documents/{id}/text, so large texts never sit in memory whole
+    public InputStream openExtractedText(Document doc) throws IOException {
+        if (doc.getExtractedText() != null || doc.getExtractedTextId() == null) {
+            String text = doc.getExtractedText() == null ? "" : doc.getExtractedText();
+            return new java.io.ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return documentTextStore.open(doc.getExtractedTextId());
+    }
 
-        documentRepository.save(doc);
+    private record Extraction(String text, boolean sufficientForSummary, String processingStatus) {}
 
+    private String buildResponseMessage(StringBuilder responseMessageBuilder, String originalFileName,
+                                        String processingStatus, String extractedText, String summary) {
         responseMessageBuilder.insert(0, "--- Processing Complete! ---\nFile: " + originalFileName + "\nStatus: " + processingStatus + "\n\n");
 
         if (!responseMessageBuilder.toString().contains("Warning:") && !responseMessageBuilder.toString().contains("Error:")) {
@@ -165,65 +689,52 @@ public class DocumentService {
         return responseMessageBuilder.toString();
     }
 
-    private String extractTextFromNativePdf(InputStream is) throws IOException {
-        try (PDDocument document = PDDocument.load(is)) {
-            PDFTextStripper pdfStripper = new PDFTextStripper();
-            return pdfStripper.getText(document);
-        }
+    // package-private for the JMH benchmarks (src/jmh/java)
+    static String[] extractTextFromNativePdf(PDDocument document) throws IOException {
+        return new PageTextStripper().extractPages(document);
     }
 
-    private String performOcrOnPdfStream(InputStream is) throws IOException, TesseractException {
-        Tesseract tesseract = new Tesseract();
-        tesseract.setDatapath("C:\\Program Files\\Tesseract-OCR\\tessdata");
-        tesseract.setLanguage("eng");
-
-        StringBuilder ocrText = new StringBuilder();
-        try (PDDocument document = PDDocument.load(is)) {
-            PDFRenderer pdfRenderer = new PDFRenderer(document);
-            for (int i = 0; i < document.getNumberOfPages(); i++) {
-                BufferedImage image = pdfRenderer.renderImageWithDPI(i, 300);
-                try {
-                    String pageText = tesseract.doOCR(image);
-                    ocrText.append(pageText).append("\n");
-                } catch (TesseractException e) {
-                    logger.warn("Tesseract failed on page {}: {}", i, e.getMessage());
-                }
+    // userId of the caller, falling back to the username for non-User principals and "anonymous" otherwise
+    public String resolveCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated() && !(authentication.getPrincipal() instanceof String)) {
+            UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+            if (userDetails instanceof User) {
+                return ((User) userDetails).getId();
             }
+            return userDetails.getUsername();
         }
-        return ocrText.toString();
+        return "anonymous";
     }
 
-    private boolean isTextQualitySufficient(String text, int minLength) {
-        if (text == null || text.trim().isEmpty()) {
-            logger.debug("isTextQualitySufficient: Empty input");
-            return false;
+    // Keyset pagination over the user's history, newest first. The cursor is opaque to clients:
+    // base64url of "<createdAt>|<id>" of the last item of the previous page.
+    public DocumentSummaryPage getUserDocuments(String userId, String cursor, int limit) {
+        LocalDateTime beforeCreatedAt = null;
+        String beforeId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+                beforeCreatedAt = LocalDateTime.parse(parts[0]);
+                beforeId = parts[1];
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor.");
+            }
         }
-
-        String cleaned = text.replaceAll("[^A-Za-z0-9\\s]", "").trim().replaceAll("\\s+", " ");
-        String[] words = cleaned.split(" ");
-        long meaningfulWords = words.length == 0 ? 0 : 
-            java.util.Arrays.stream(words).filter(w -> w.length() >= 3 && MEANINGFUL_TEXT_PATTERN.matcher(w).matches()).count();
-
-        boolean hasEnoughLength = cleaned.length() >= minLength;
-        boolean hasEnoughWords = meaningfulWords >= 5;
-
-        logger.debug("isTextQualitySufficient: Cleaned length={}, Words={}, MeaningfulWords={}, LengthOK={}, WordsOK={}",
-                cleaned.length(), words.length, meaningfulWords, hasEnoughLength, hasEnoughWords);
-
-        return hasEnoughLength && hasEnoughWords;
-    }
-
-    private boolean isLikelyHandwrittenOrPoorQuality(String ocrText, String fileName) {
-        if (ocrText.length() < 200 && fileName.toLowerCase().contains("handwritten")) {
-            return true;
+        // one extra row tells us whether another page exists
+        List<DocumentSummary> items = documentRepository.findSummariesByUserId(userId, beforeCreatedAt, beforeId, limit + 1);
+        String nextCursor = null;
+        if (items.size() > limit) {
+            items = items.subList(0, limit);
+            DocumentSummary last = items.get(limit - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (last.getCreatedAt() + "|" + last.getId()).getBytes(StandardCharsets.UTF_8));
         }
-        long alphanumericChars = ocrText.chars().filter(Character::isLetterOrDigit).count();
-        double density = (double) alphanumericChars / ocrText.length();
-        return ocrText.length() > 0 && density < 0.2;
+        return new DocumentSummaryPage(items, nextCursor);
     }
 
-    public List<Document> getUserDocuments(String userId) {
-        return documentRepository.findByUserId(userId);
+    public DocumentSearchResult searchUserDocuments(String userId, String query, int limit) throws IOException {
+        return documentSearchIndex.search(userId, query, limit);
     }
 
     public Optional<Document> getDocumentById(String id) {
@@ -0,0 +1,82 @@
+package com.ram.project.documentsummerizer.service;
+
+import com.mongodb.client.gridfs.model.GridFSFile;
+import com.ram.project.documentsummerizer.model.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+import java.util.zip.InflaterInputStream;
+
+// Deflate-compressed extracted text in the document_texts GridFS bucket. Documents only keep the file id
+// and the text length; the text itself is inflated on the fly when a reader asks for it.
+@Service
+public class DocumentTextStore {
+
+    private static final String CONTENT_TYPE = "text/plain; charset=UTF-8";
+
+    private final GridFsTemplate gridFsTemplate;
+
+    @Value("${documents.text.compression-level:6}")
+    private int compressionLevel;
+
+    public DocumentTextStore(@Qualifier("documentTextGridFs") GridFsTemplate gridFsTemplate) {
+        this.gridFsTemplate = gridFsTemplate;
+    }
+
+    public String store(String text, String originalFileName) {
+        Deflater deflater = new Deflater(compressionLevel);
+        try (InputStream compressed = new DeflaterInputStream(
+                new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), deflater)) {
+            org.bson.Document metadata = new org.bson.Document("encoding", "deflate")
+                    .append("length", text.length());
+            return gridFsTemplate.store(compressed, originalFileName + ".txt", CONTENT_TYPE, metadata).toHexString();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not store extracted text for " + originalFileName, e);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    // decompressing stream over the stored text, the caller closes it
+    public InputStream open(String textId) throws IOException {
+        GridFSFile file = gridFsTemplate.findOne(byId(textId));
+        if (file == null) {
+            throw new FileNotFoundException("Extracted text " + textId + " not found");
+        }
+        return new InflaterInputStream(gridFsTemplate.getResource(file).getInputStream());
+    }
+
+    public String load(String textId) throws IOException {
+        try (InputStream in = open(textId)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // inline text of documents saved before extracted text moved here, otherwise the stored blob
+    public String load(Document doc) throws IOException {
+        if (doc.getExtractedText() != null || doc.getExtractedTextId() == null) {
+            return doc.getExtractedText();
+        }
+        return load(doc.getExtractedTextId());
+    }
+
+    public void delete(String textId) {
+        gridFsTemplate.delete(byId(textId));
+    }
+
+    private static Query byId(String textId) {
+        return Query.query(Criteria.where("_id").is(new ObjectId(textId)));
+    }
+}
@@ -0,0 +1,154 @@
+package com.ram.project.documentsummerizer.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ram.project.documentsummerizer.model.ExtractionCacheEntry;
+import com.ram.project.documentsummerizer.repository.ExtractionCacheRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// Content-addressed cache of extraction + summary results. Identical uploads (same SHA-256)
+// skip PDFBox, Tesseract and Groq entirely. A size-bounded in-memory tier sits in front of the
+// extraction_cache collection, whose TTL index is created by MongoIndexInitializer. Stored text is
+// deflate-compressed; an entry that is still too big for one Mongo document stays in memory only.
+@Service
+public class ExtractionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionCache.class);
+
+    private final ExtractionCacheRepository repository;
+    private final Cache<String, ExtractionCacheEntry> memory;
+    private final boolean enabled;
+    private final long maxStoredBytes;
+
+    public ExtractionCache(ExtractionCacheRepository repository,
+                           @Value("${extraction-cache.enabled:true}") boolean enabled,
+                           @Value("${extraction-cache.memory.max-chars:50000000}") long maxChars,
+                           @Value("${extraction-cache.memory.ttl:6h}") Duration memoryTtl,
+                           @Value("${extraction-cache.persistent.max-entry-mb:15}") long maxStoredMb) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.maxStoredBytes = maxStoredMb * 1024 * 1024;
+        this.memory = Caffeine.newBuilder()
+                .maximumWeight(maxChars)
+                .weigher((String hash, ExtractionCacheEntry entry) -> weigh(entry))
+                .expireAfterWrite(memoryTtl)
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // streaming SHA-256 of the upload, never holds more than one buffer of it
+    public String hash(InputStreamSource source) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream is = source.getInputStream()) {
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public Optional<ExtractionCacheEntry> get(String contentHash) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        ExtractionCacheEntry entry = memory.getIfPresent(contentHash);
+        if (entry != null) {
+            return Optional.of(entry);
+        }
+        try {
+            Optional<ExtractionCacheEntry> stored = repository.findById(contentHash).map(ExtractionCache::inflated);
+            stored.ifPresent(e -> memory.put(contentHash, e));
+            return stored;
+        } catch (Exception e) {
+            logger.warn("Extraction cache lookup failed for {}: {}", contentHash, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public void put(String contentHash, String extractedText, String summary) {
+        if (!enabled) {
+            return;
+        }
+        memory.put(contentHash, new ExtractionCacheEntry(contentHash, extractedText, summary));
+        try {
+            byte[] compressed = deflate(extractedText);
+            // the summary is small, the rest of the 16 MB document limit is headroom for it
+            if (compressed.length > maxStoredBytes) {
+                logger.info("Extraction cache entry {} is {} bytes compressed, keeping it in memory only",
+                        contentHash, compressed.length);
+                return;
+            }
+            repository.save(ExtractionCacheEntry.compressed(contentHash, compressed, summary));
+        } catch (Exception e) {
+            // a failed write only costs a future cache miss
+            logger.warn("Could not persist extraction cache entry {}: {}", contentHash, e.getMessage());
+        }
+    }
+
+    private static byte[] deflate(String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try (OutputStream out = new DeflaterOutputStream(bytes, deflater)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    // entries written before the text was compressed still carry it as extractedText
+    private static ExtractionCacheEntry inflated(ExtractionCacheEntry stored) {
+        if (stored.getCompressedText() == null) {
+            return stored;
+        }
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(stored.getCompressedText()))) {
+            ExtractionCacheEntry entry = new ExtractionCacheEntry(stored.getContentHash(),
+                    new String(in.readAllBytes(), StandardCharsets.UTF_8), stored.getSummary());
+            entry.setCreatedAt(stored.getCreatedAt());
+            return entry;
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupt extraction cache entry " + stored.getContentHash(), e);
+        }
+    }
+
+    private static int weigh(ExtractionCacheEntry entry) {
+        long chars = (long) length(entry.getExtractedText()) + length(entry.getSummary());
+        return (int) Math.min(Integer.MAX_VALUE, chars);
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.ram.project.documentsummerizer.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+
+// A model we host ourselves behind an OpenAI-compatible server (llama.cpp's llama-server, vLLM, Ollama).
+// There's no quota to respect, so the rate limits default to effectively unlimited; the connection pool
+// is what bounds the load, size it to the server's parallel slots.
+@Service
+@ConditionalOnProperty(name = "local-model.enabled", havingValue = "true")
+public class LocalModelProvider extends OpenAiCompatibleProvider {
+
+    public LocalModelProvider(WebClient.Builder webClientBuilder, PipelineMetrics pipelineMetrics,
+                              @Value("${local-model.api-key:}") String apiKey,
+                              @Value("${local-model.base-url:http://localhost:8081/v1}") String baseUrl,
+                              @Value("${local-model.model:local}") String model,
+                              @Value("${local-model.connect-timeout:2s}") Duration connectTimeout,
+                              @Value("${local-model.read-timeout:120s}") Duration readTimeout,
+                              @Value("${local-model.retry.max-attempts:1}") int maxAttempts,
+                              @Value("${local-model.retry.min-backoff:500ms}") Duration minBackoff,
+                              @Value("${local-model.retry.max-backoff:5s}") Duration maxBackoff,
+                              @Value("${local-model.rate-limit.requests-per-minute:1000000}") int requestsPerMinute,
+                              @Value("${local-model.rate-limit.tokens-per-minute:1000000000}") int tokensPerMinute,
+                              @Value("${local-model.pool.max-connections:4}") int maxConnections,
+                              @Value("${local-model.pool.max-idle-time:30s}") Duration maxIdleTime) {
+        super("local", webClientBuilder, pipelineMetrics, apiKey, baseUrl, model, connectTimeout, readTimeout,
+                maxAttempts, minBackoff, maxBackoff, requestsPerMinute, tokensPerMinute, maxConnections, maxIdleTime);
+    }
+}
@@ -0,0 +1,34 @@
+package com.ram.project.documentsummerizer.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.UUID;
+
+// The name this node takes leases on upload jobs and batches under. documents.jobs.node-id, or the host name
+// plus a random suffix, so a restarted node never mistakes the leases of its previous run for its own.
+@Component
+public class NodeIdentity {
+
+    private final String id;
+
+    public NodeIdentity(@Value("${documents.jobs.node-id:}") String id) {
+        this.id = id.isBlank() ? defaultId() : id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    private static String defaultId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
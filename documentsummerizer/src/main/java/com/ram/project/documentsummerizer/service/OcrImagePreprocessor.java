@@ -0,0 +1,397 @@
+package com.ram.project.documentsummerizer.service;
+
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Cleans up scanned pages before Tesseract so it sees fewer, better pixels. Two steps:
+//   probe (calling thread, on a cheap 72 DPI render): skip pages with no ink, measure skew, and pick the
+//          render DPI from the measured line height, so large print isn't rendered at full resolution
+//   clean (OCR worker): deskew, Otsu binarization and cropping to the text, producing a 1-bit image
+// Both work on 8-bit grayscale renders.
+@Component
+public class OcrImagePreprocessor {
+
+    private static final int PROBE_DPI = 72;
+    // darkest and lightest Otsu classes closer than this are a flat page (blank paper, scanner noise)
+    private static final int MIN_CONTRAST = 48;
+    // skew search range and step, in degrees
+    private static final double MAX_SKEW = 5.0;
+    private static final double SKEW_STEP = 0.25;
+    // rows or columns more than this share of ink are scanner borders or the page edge, not content
+    private static final double HEAVY_LINE_RATIO = 0.6;
+
+    private final boolean enabled;
+    private final double blankInkRatio;
+    private final boolean adaptiveDpi;
+    private final int minDpi;
+    private final int targetLineHeightPx;
+    private final boolean deskew;
+    private final double minDeskewDegrees;
+
+    public OcrImagePreprocessor(@Value("${ocr.preprocess.enabled:true}") boolean enabled,
+                                @Value("${ocr.preprocess.blank-ink-ratio:0.001}") double blankInkRatio,
+                                @Value("${ocr.preprocess.adaptive-dpi:true}") boolean adaptiveDpi,
+                                @Value("${ocr.preprocess.min-dpi:150}") int minDpi,
+                                @Value("${ocr.preprocess.target-line-height-px:40}") int targetLineHeightPx,
+                                @Value("${ocr.preprocess.deskew:true}") boolean deskew,
+                                @Value("${ocr.preprocess.min-deskew-degrees:0.3}") double minDeskewDegrees) {
+        this.enabled = enabled;
+        this.blankInkRatio = blankInkRatio;
+        this.adaptiveDpi = adaptiveDpi;
+        this.minDpi = minDpi;
+        this.targetLineHeightPx = targetLineHeightPx;
+        this.deskew = deskew;
+        this.minDeskewDegrees = minDeskewDegrees;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // what to do with a page: skip it, or render it at dpi and clean it up with the measured skew
+    public record Probe(boolean blank, int dpi, double skewDegrees) {}
+
+    public Probe probe(PDFRenderer renderer, int pageIndex, int maxDpi) throws IOException {
+        Gray page = Gray.of(renderer.renderImageWithDPI(pageIndex, PROBE_DPI, ImageType.GRAY));
+        int[] histogram = page.histogram();
+        int threshold = otsu(histogram);
+        if (contrast(histogram, threshold) < MIN_CONTRAST) {
+            return new Probe(true, maxDpi, 0);
+        }
+        boolean[] ink = page.ink(threshold);
+        int[] box = contentBox(ink, page.width, page.height);
+        if (box == null || inkCount(ink, page.width, box) < blankInkRatio * page.width * page.height) {
+            return new Probe(true, maxDpi, 0);
+        }
+        InkPoints points = InkPoints.of(ink, page.width, box);
+        double skew = deskew ? estimateSkew(points) : 0;
+        int dpi = maxDpi;
+        if (adaptiveDpi) {
+            double lineHeightPt = medianLineHeight(points, skew); // at 72 DPI, pixels are points
+            if (lineHeightPt > 0) {
+                dpi = (int) Math.max(minDpi, Math.min(maxDpi, Math.round(targetLineHeightPx * 72.0 / lineHeightPt)));
+            }
+        }
+        return new Probe(false, dpi, skew);
+    }
+
+    // deskews, binarizes and crops a grayscale render; null if nothing is left after cropping
+    public BufferedImage clean(BufferedImage image, double skewDegrees, int dpi) {
+        Gray page = Gray.of(image);
+        boolean[] ink = page.ink(otsu(page.histogram()));
+        int[] box = contentBox(ink, page.width, page.height);
+        if (box == null) {
+            return null;
+        }
+        if (deskew && Math.abs(skewDegrees) >= minDeskewDegrees) {
+            // borders are cleared first, rotated they would no longer line up with the trimmed edges
+            page.whiteOutside(box);
+            page = Gray.of(rotate(page.image(), -skewDegrees));
+            ink = page.ink(otsu(page.histogram()));
+            box = contentBox(ink, page.width, page.height);
+            if (box == null) {
+                return null;
+            }
+        }
+        // Tesseract does better with a little white space around the text
+        int margin = Math.max(4, dpi / 20);
+        int left = Math.max(0, box[0] - margin);
+        int top = Math.max(0, box[1] - margin);
+        int right = Math.min(page.width - 1, box[2] + margin);
+        int bottom = Math.min(page.height - 1, box[3] + margin);
+        return binary(ink, page.width, left, top, right - left + 1, bottom - top + 1);
+    }
+
+    static int otsu(int[] histogram) {
+        long total = 0;
+        long sum = 0;
+        for (int i = 0; i < 256; i++) {
+            total += histogram[i];
+            sum += (long) i * histogram[i];
+        }
+        long backgroundWeight = 0;
+        long backgroundSum = 0;
+        double best = -1;
+        int threshold = 127;
+        for (int t = 0; t < 256; t++) {
+            backgroundWeight += histogram[t];
+            if (backgroundWeight == 0) {
+                continue;
+            }
+            long foregroundWeight = total - backgroundWeight;
+            if (foregroundWeight == 0) {
+                break;
+            }
+            backgroundSum += (long) t * histogram[t];
+            double meanDark = (double) backgroundSum / backgroundWeight;
+            double meanLight = (double) (sum - backgroundSum) / foregroundWeight;
+            double between = (double) backgroundWeight * foregroundWeight * (meanDark - meanLight) * (meanDark - meanLight);
+            if (between > best) {
+                best = between;
+                threshold = t;
+            }
+        }
+        return threshold;
+    }
+
+    private static double contrast(int[] histogram, int threshold) {
+        long darkCount = 0, darkSum = 0, lightCount = 0, lightSum = 0;
+        for (int i = 0; i < 256; i++) {
+            if (i <= threshold) {
+                darkCount += histogram[i];
+                darkSum += (long) i * histogram[i];
+            } else {
+                lightCount += histogram[i];
+                lightSum += (long) i * histogram[i];
+            }
+        }
+        if (darkCount == 0 || lightCount == 0) {
+            return 0;
+        }
+        return (double) lightSum / lightCount - (double) darkSum / darkCount;
+    }
+
+    // {left, top, right, bottom} of the text, trimming empty and border-like columns then rows from each
+    // edge; null if there is no content. Rows with a speck or two of ink count as empty.
+    static int[] contentBox(boolean[] ink, int width, int height) {
+        int[] columns = new int[width];
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                if (ink[row + x]) {
+                    columns[x]++;
+                }
+            }
+        }
+        int[] horizontal = trim(columns, height);
+        if (horizontal == null) {
+            return null;
+        }
+        int[] rows = new int[height];
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            for (int x = horizontal[0]; x <= horizontal[1]; x++) {
+                if (ink[row + x]) {
+                    rows[y]++;
+                }
+            }
+        }
+        int[] vertical = trim(rows, horizontal[1] - horizontal[0] + 1);
+        if (vertical == null) {
+            return null;
+        }
+        return new int[]{horizontal[0], vertical[0], horizontal[1], vertical[1]};
+    }
+
+    private static int[] trim(int[] counts, int length) {
+        int noise = Math.max(1, length / 100);
+        int heavy = (int) (length * HEAVY_LINE_RATIO);
+        int start = 0;
+        while (start < counts.length && (counts[start] <= noise || counts[start] >= heavy)) {
+            start++;
+        }
+        int end = counts.length - 1;
+        while (end > start && (counts[end] <= noise || counts[end] >= heavy)) {
+            end--;
+        }
+        return start < counts.length ? new int[]{start, end} : null;
+    }
+
+    private static long inkCount(boolean[] ink, int width, int[] box) {
+        long count = 0;
+        for (int y = box[1]; y <= box[3]; y++) {
+            int row = y * width;
+            for (int x = box[0]; x <= box[2]; x++) {
+                if (ink[row + x]) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    // Projection-profile skew estimate: text lines are straightest at the angle where the ink, summed
+    // along lines of that slope, is most concentrated (largest sum of squared row totals).
+    static double estimateSkew(InkPoints points) {
+        double bestAngle = 0;
+        double bestScore = -1;
+        for (double angle = -MAX_SKEW; angle <= MAX_SKEW + 1e-9; angle += SKEW_STEP) {
+            double score = 0;
+            for (int count : profile(points, angle)) {
+                score += (double) count * count;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestAngle = angle;
+            }
+        }
+        return bestAngle;
+    }
+
+    // ink per line of the given slope, indexed by where the line crosses the box's left edge
+    private static int[] profile(InkPoints points, double angleDegrees) {
+        double slope = Math.tan(Math.toRadians(angleDegrees));
+        int shift = (int) Math.ceil(Math.abs(slope) * points.width());
+        int[] counts = new int[points.height() + 2 * shift + 1];
+        for (int i = 0; i < points.x().length; i++) {
+            counts[(int) (points.y()[i] - points.x()[i] * slope + 0.5) + shift]++;
+        }
+        return counts;
+    }
+
+    // ink pixel coordinates relative to the content box, so the skew search only visits ink
+    record InkPoints(int[] x, int[] y, int width, int height) {
+
+        static InkPoints of(boolean[] ink, int width, int[] box) {
+            int count = 0;
+            for (int y = box[1]; y <= box[3]; y++) {
+                for (int x = box[0]; x <= box[2]; x++) {
+                    if (ink[y * width + x]) {
+                        count++;
+                    }
+                }
+            }
+            int[] xs = new int[count];
+            int[] ys = new int[count];
+            int i = 0;
+            for (int y = box[1]; y <= box[3]; y++) {
+                for (int x = box[0]; x <= box[2]; x++) {
+                    if (ink[y * width + x]) {
+                        xs[i] = x - box[0];
+                        ys[i++] = y - box[1];
+                    }
+                }
+            }
+            return new InkPoints(xs, ys, box[2] - box[0] + 1, box[3] - box[1] + 1);
+        }
+    }
+
+    // median height of the text line bands along the skew, 0 if no lines stand out
+    private static double medianLineHeight(InkPoints points, double skew) {
+        int[] counts = profile(points, skew);
+        int minInk = Math.max(1, points.width() / 100);
+        List<Integer> heights = new ArrayList<>();
+        int run = 0;
+        for (int count : counts) {
+            if (count >= minInk) {
+                run++;
+            } else {
+                if (run >= 2) {
+                    heights.add(run);
+                }
+                run = 0;
+            }
+        }
+        if (run >= 2) {
+            heights.add(run);
+        }
+        if (heights.isEmpty()) {
+            return 0;
+        }
+        int[] sorted = heights.stream().mapToInt(Integer::intValue).sorted().toArray();
+        return sorted[sorted.length / 2];
+    }
+
+    private static BufferedImage rotate(BufferedImage image, double degrees) {
+        BufferedImage rotated = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = rotated.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.rotate(Math.toRadians(degrees), image.getWidth() / 2.0, image.getHeight() / 2.0);
+            g.drawImage(image, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return rotated;
+    }
+
+    // packs the ink mask into a 1-bit image (bit set = white, per the default binary palette)
+    private static BufferedImage binary(boolean[] ink, int width, int left, int top, int cropWidth, int cropHeight) {
+        BufferedImage image = new BufferedImage(cropWidth, cropHeight, BufferedImage.TYPE_BYTE_BINARY);
+        byte[] packed = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        int stride = (cropWidth + 7) / 8;
+        Arrays.fill(packed, (byte) 0xFF);
+        for (int y = 0; y < cropHeight; y++) {
+            int source = (top + y) * width + left;
+            int target = y * stride;
+            for (int x = 0; x < cropWidth; x++) {
+                if (ink[source + x]) {
+                    packed[target + (x >> 3)] &= (byte) ~(0x80 >> (x & 7));
+                }
+            }
+        }
+        return image;
+    }
+
+    // an 8-bit grayscale image's pixels without copying them, when the raster allows it
+    private record Gray(BufferedImage image, byte[] data, int width, int height, int stride, int offset) {
+
+        static Gray of(BufferedImage image) {
+            if (image.getType() != BufferedImage.TYPE_BYTE_GRAY) {
+                BufferedImage gray = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+                Graphics2D g = gray.createGraphics();
+                try {
+                    g.drawImage(image, 0, 0, null);
+                } finally {
+                    g.dispose();
+                }
+                image = gray;
+            }
+            ComponentSampleModel model = (ComponentSampleModel) image.getSampleModel();
+            DataBufferByte buffer = (DataBufferByte) image.getRaster().getDataBuffer();
+            int offset = buffer.getOffset() + model.getOffset(
+                    -image.getRaster().getSampleModelTranslateX(), -image.getRaster().getSampleModelTranslateY());
+            return new Gray(image, buffer.getData(), image.getWidth(), image.getHeight(), model.getScanlineStride(), offset);
+        }
+
+        void whiteOutside(int[] box) {
+            for (int y = 0; y < height; y++) {
+                int row = offset + y * stride;
+                boolean inside = y >= box[1] && y <= box[3];
+                for (int x = 0; x < width; x++) {
+                    if (!inside || x < box[0] || x > box[2]) {
+                        data[row + x] = (byte) 0xFF;
+                    }
+                }
+            }
+        }
+
+        int[] histogram() {
+            int[] histogram = new int[256];
+            for (int y = 0; y < height; y++) {
+                int row = offset + y * stride;
+                for (int x = 0; x < width; x++) {
+                    histogram[data[row + x] & 0xFF]++;
+                }
+            }
+            return histogram;
+        }
+
+        boolean[] ink(int threshold) {
+            boolean[] ink = new boolean[width * height];
+            for (int y = 0; y < height; y++) {
+                int row = offset + y * stride;
+                int target = y * width;
+                for (int x = 0; x < width; x++) {
+                    ink[target + x] = (data[row + x] & 0xFF) <= threshold;
+                }
+            }
+            return ink;
+        }
+    }
+}
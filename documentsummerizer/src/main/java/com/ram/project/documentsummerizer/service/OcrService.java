@@ -0,0 +1,225 @@
+package com.ram.project.documentsummerizer.service;
+
+import com.ram.project.documentsummerizer.model.JobStage;
+import jakarta.annotation.PreDestroy;
+import net.sourceforge.tess4j.Tesseract;
+import net.sourceforge.tess4j.TesseractException;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+// Page-parallel OCR. Pages are rendered on the calling thread (a PDDocument must not be shared
+// across renderers) and recognised on a fixed pool where each worker keeps its own Tesseract.
+// Rendering blocks once maxPagesInFlight pages are waiting, and pages are rendered as 8-bit
+// grayscale (or 1-bit binary) instead of ARGB, a quarter of the memory per page or less.
+// With preprocessing on, blank pages are skipped before the full render, each page is rendered at the
+// DPI its text size needs, and the worker deskews, binarizes and crops it before recognition.
+@Service
+public class OcrService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OcrService.class);
+
+    private final String datapath;
+    private final String language;
+    private final int dpi;
+    private final ImageType imageType;
+    private final int maxPagesInFlight;
+    private final int threads;
+    private final ThreadPoolExecutor ocrExecutor;
+    private final PipelineMetrics pipelineMetrics;
+    private final OcrImagePreprocessor preprocessor;
+    private final ThreadLocal<Tesseract> tesseract = ThreadLocal.withInitial(this::createTesseract);
+
+    public OcrService(@Value("${ocr.tesseract.datapath:/usr/share/tesseract-ocr/5/tessdata}") String datapath,
+                      @Value("${ocr.tesseract.language:eng}") String language,
+                      @Value("${ocr.dpi:300}") int dpi,
+                      @Value("${ocr.image-type:GRAY}") ImageType imageType,
+                      @Value("${ocr.threads:0}") int threads,
+                      @Value("${ocr.max-pages-in-flight:0}") int maxPagesInFlight,
+                      PipelineMetrics pipelineMetrics,
+                      OcrImagePreprocessor preprocessor) {
+        this.datapath = datapath;
+        this.language = language;
+        this.dpi = dpi;
+        this.imageType = imageType;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.maxPagesInFlight = maxPagesInFlight > 0 ? maxPagesInFlight : poolSize * 2;
+        this.threads = poolSize;
+        this.ocrExecutor = (ThreadPoolExecutor) Executors.newFixedThreadPool(poolSize, namedThreadFactory());
+        this.pipelineMetrics = pipelineMetrics;
+        this.preprocessor = preprocessor;
+        pipelineMetrics.queueGauge("ocr.queue.size", "Rendered pages waiting for an OCR worker",
+                () -> ocrExecutor.getQueue().size());
+        pipelineMetrics.queueGauge("ocr.active", "Pages being recognised", ocrExecutor::getActiveCount);
+        logger.info("OCR pool started with {} threads (datapath={}, language={})", poolSize, datapath, language);
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getMaxPagesInFlight() {
+        return maxPagesInFlight;
+    }
+
+    // rendered pages of all documents waiting for a worker
+    public int getQueuedPages() {
+        return ocrExecutor.getQueue().size();
+    }
+
+    // OCRs the given zero-based pages and returns their text keyed by page index, in page order
+    public Map<Integer, String> ocrPages(PDDocument document, List<Integer> pageIndices, ProcessingListener listener)
+            throws IOException, TesseractException {
+        return ocrPages(document, pageIndices, listener, (page, text) -> {});
+    }
+
+    // pageDone gets each page as soon as it is collected, on the calling thread, so pages finished before
+    // a failure can be checkpointed
+    public Map<Integer, String> ocrPages(PDDocument document, List<Integer> pageIndices, ProcessingListener listener,
+                                         BiConsumer<Integer, String> pageDone) throws IOException, TesseractException {
+        PDFRenderer pdfRenderer = new PDFRenderer(document);
+        int pageCount = pageIndices.size();
+        AtomicInteger completed = new AtomicInteger();
+        // caps rendered-but-not-yet-recognised pages for this document, so peak memory
+        // depends on the pipeline depth and not on how many pages the PDF has
+        Semaphore pagesInFlight = new Semaphore(maxPagesInFlight);
+        Deque<PendingPage> pending = new ArrayDeque<>();
+        Map<Integer, String> ocrText = new LinkedHashMap<>();
+        try {
+            for (int i : pageIndices) {
+                OcrImagePreprocessor.Probe probe = null;
+                if (preprocessor.isEnabled()) {
+                    long probeStart = System.nanoTime();
+                    probe = preprocessor.probe(pdfRenderer, i, dpi);
+                    pipelineMetrics.recordStage("page_probe", probeStart);
+                    if (probe.blank()) {
+                        pipelineMetrics.ocrPageSkipped();
+                        ocrText.put(i, "");
+                        pageDone.accept(i, "");
+                        listener.stageProgress(JobStage.OCR, completed.incrementAndGet(), pageCount);
+                        continue;
+                    }
+                }
+                pagesInFlight.acquire();
+                BufferedImage image;
+                try {
+                    long renderStart = System.nanoTime();
+                    image = probe != null
+                            ? pdfRenderer.renderImageWithDPI(i, probe.dpi(), ImageType.GRAY)
+                            : pdfRenderer.renderImageWithDPI(i, dpi, imageType);
+                    pipelineMetrics.recordStage("page_render", renderStart);
+                } catch (IOException | RuntimeException e) {
+                    pagesInFlight.release();
+                    throw e;
+                }
+                int pageIndex = i;
+                OcrImagePreprocessor.Probe pageProbe = probe;
+                pending.add(new PendingPage(pageIndex, ocrExecutor.submit(() -> {
+                    try {
+                        return pageProbe != null ? ocrPreprocessedPage(image, pageProbe, pageIndex) : ocrPage(image, pageIndex);
+                    } finally {
+                        // the task drops its image reference once it finishes
+                        image.flush();
+                        pagesInFlight.release();
+                        listener.stageProgress(JobStage.OCR, completed.incrementAndGet(), pageCount);
+                    }
+                })));
+                drainCompleted(pending, ocrText, pageDone, false);
+            }
+            drainCompleted(pending, ocrText, pageDone, true);
+            return ocrText;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for OCR results", e);
+        } catch (ExecutionException e) {
+            throw new TesseractException("OCR worker failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            // on failure, pages that did finish still reach pageDone, the rest are cancelled
+            for (PendingPage page : pending) {
+                if (page.text().state() == Future.State.SUCCESS) {
+                    pageDone.accept(page.pageIndex(), page.text().resultNow());
+                } else {
+                    page.text().cancel(true);
+                }
+            }
+        }
+    }
+
+    // collects finished pages in page order; stops at the first page still running unless waiting
+    private static void drainCompleted(Deque<PendingPage> pending, Map<Integer, String> ocrText,
+                                       BiConsumer<Integer, String> pageDone, boolean wait)
+            throws InterruptedException, ExecutionException {
+        while (!pending.isEmpty() && (wait || pending.peek().text().isDone())) {
+            PendingPage page = pending.poll();
+            String text = page.text().get();
+            ocrText.put(page.pageIndex(), text);
+            pageDone.accept(page.pageIndex(), text);
+        }
+    }
+
+    private record PendingPage(int pageIndex, Future<String> text) {}
+
+    private String ocrPreprocessedPage(BufferedImage image, OcrImagePreprocessor.Probe probe, int pageIndex) {
+        long start = System.nanoTime();
+        BufferedImage cleaned = preprocessor.clean(image, probe.skewDegrees(), probe.dpi());
+        pipelineMetrics.recordStage("page_preprocess", start);
+        if (cleaned == null) {
+            pipelineMetrics.ocrPageSkipped();
+            return "";
+        }
+        return ocrPage(cleaned, pageIndex);
+    }
+
+    private String ocrPage(BufferedImage image, int pageIndex) {
+        long start = System.nanoTime();
+        try {
+            return tesseract.get().doOCR(image);
+        } catch (TesseractException e) {
+            logger.warn("Tesseract failed on page {}: {}", pageIndex, e.getMessage());
+            return "";
+        } finally {
+            pipelineMetrics.recordStage("page_ocr", start);
+        }
+    }
+
+    private Tesseract createTesseract() {
+        Tesseract instance = new Tesseract();
+        instance.setDatapath(datapath);
+        instance.setLanguage(language);
+        return instance;
+    }
+
+    private static ThreadFactory namedThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "ocr-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ocrExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,275 @@
+package com.ram.project.documentsummerizer.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
+import reactor.util.retry.RetryBackoffSpec;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+// Chat completions over the OpenAI wire format, which Groq, llama.cpp's llama-server, vLLM and Ollama all
+// speak. Subclasses only supply their configuration.
+public abstract class OpenAiCompatibleProvider implements SummarizationProvider {
+
+    private static final Logger logger = Logger.getLogger(OpenAiCompatibleProvider.class.getName());
+    // rough estimate used to charge prompts against the tokens-per-minute quota
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final String STREAM_DONE = "[DONE]";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> SERVER_SENT_EVENTS =
+            new ParameterizedTypeReference<>() {};
+
+    private final WebClient webClient;
+    private final ConnectionProvider connectionProvider;
+    private final TokenBucketRateLimiter requestLimiter;
+    private final TokenBucketRateLimiter tokenLimiter;
+    private final String name;
+    private final String apiKey;
+    private final String model;
+    private final RetryBackoffSpec retry;
+    private final PipelineMetrics pipelineMetrics;
+
+    protected OpenAiCompatibleProvider(String name, WebClient.Builder webClientBuilder, PipelineMetrics pipelineMetrics,
+                                       String apiKey, String baseUrl, String model,
+                                       Duration connectTimeout, Duration readTimeout,
+                                       int maxAttempts, Duration minBackoff, Duration maxBackoff,
+                                       int requestsPerMinute, int tokensPerMinute,
+                                       int maxConnections, Duration maxIdleTime) {
+        this(name, webClientBuilder, pipelineMetrics, apiKey, baseUrl, model, connectTimeout, readTimeout,
+                maxAttempts, minBackoff, maxBackoff, requestsPerMinute, tokensPerMinute, maxConnections, maxIdleTime,
+                Duration.ofMinutes(1));
+    }
+
+    // rateLimitWindow is the period the request and token quotas refill over, a minute outside of tests
+    protected OpenAiCompatibleProvider(String name, WebClient.Builder webClientBuilder, PipelineMetrics pipelineMetrics,
+                                       String apiKey, String baseUrl, String model,
+                                       Duration connectTimeout, Duration readTimeout,
+                                       int maxAttempts, Duration minBackoff, Duration maxBackoff,
+                                       int requestsPerMinute, int tokensPerMinute,
+                                       int maxConnections, Duration maxIdleTime, Duration rateLimitWindow) {
+        this.name = name;
+        this.apiKey = apiKey;
+        this.model = model;
+        this.pipelineMetrics = pipelineMetrics;
+        this.connectionProvider = ConnectionProvider.builder(name)
+                .maxConnections(maxConnections)
+                // no cap on callers waiting for a connection (the default is 2 x maxConnections): on virtual
+                // threads there can be far more in-flight uploads than that, the acquire timeout still applies
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(readTimeout)
+                .maxIdleTime(maxIdleTime)
+                .evictInBackground(maxIdleTime)
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(readTimeout);
+        this.webClient = webClientBuilder.baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .build();
+        this.requestLimiter = new TokenBucketRateLimiter(requestsPerMinute, rateLimitWindow);
+        this.tokenLimiter = new TokenBucketRateLimiter(tokensPerMinute, rateLimitWindow);
+        // maxAttempts counts the first call too, Retry.backoff only the retries after it
+        this.retry = Retry.backoff(Math.max(0, maxAttempts - 1), minBackoff)
+                .maxBackoff(maxBackoff)
+                .jitter(0.5)
+                .filter(OpenAiCompatibleProvider::isRetryable)
+                .doBeforeRetry(signal -> logger.warning(name + " call failed (" + signal.failure().getMessage()
+                        + "), attempt " + (signal.totalRetries() + 2) + " of " + maxAttempts))
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public Mono<String> summarize(String text) {
+        return complete("summarize", summaryPrompt(text));
+    }
+
+    // map step of chunked summarization: one section of a longer document
+    @Override
+    public Mono<String> summarizeChunk(String chunk, int index, int total) {
+        String prompt = "The following is part " + index + " of " + total + " of a longer document. Summarize this part concisely and accurately, keeping key facts, figures, names, dates and conclusions. If it is about legal or medical topics, keep critical clauses or diagnoses:\n\n" + chunk;
+        return complete("summarize_chunk", prompt);
+    }
+
+    // reduce step: merge partial summaries (in document order) into one summary of the whole document
+    @Override
+    public Mono<String> mergeSummaries(List<String> partialSummaries) {
+        return complete("merge", mergePrompt(partialSummaries));
+    }
+
+    // same as summarize, but emits the summary piece by piece as the model generates it
+    @Override
+    public Flux<String> streamSummary(String text) {
+        return stream("stream_summarize", summaryPrompt(text));
+    }
+
+    @Override
+    public Flux<String> streamMergedSummary(List<String> partialSummaries) {
+        return stream("stream_merge", mergePrompt(partialSummaries));
+    }
+
+    private static String summaryPrompt(String text) {
+        return "Please summarize the following document concisely and accurately. Focus on key information, findings, and conclusions. If the document is about legal or medical topics, highlight critical clauses or diagnoses:\n\n" + text;
+    }
+
+    private static String mergePrompt(List<String> partialSummaries) {
+        StringBuilder prompt = new StringBuilder("The following are summaries of consecutive parts of one document, in order. Combine them into a single concise and accurate summary of the whole document. Focus on key information, findings, and conclusions. If the document is about legal or medical topics, highlight critical clauses or diagnoses:\n\n");
+        for (int i = 0; i < partialSummaries.size(); i++) {
+            prompt.append("Part ").append(i + 1).append(":\n").append(partialSummaries.get(i)).append("\n\n");
+        }
+        return prompt.toString();
+    }
+
+    private Map<String, Object> requestBody(String prompt, boolean stream) {
+        // OpenAI chat completions request body
+        Map<String, Object> message = new HashMap<>();
+        message.put("role", "user");
+        message.put("content", prompt);
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("messages", Collections.singletonList(message));
+        requestBody.put("model", model); //llama3-8b-8192 by default, if you want larger model you can use
+        requestBody.put("temperature", 0.3); //i am using Lower temperature for more factual summaries
+        if (stream) {
+            requestBody.put("stream", true);
+        }
+        return requestBody;
+    }
+
+    // lazy: the permits are booked when the attempt subscribes, so retryWhen books them again for every retry
+    private Mono<Void> acquirePermits(String prompt) {
+        return requestLimiter.acquire(1).then(tokenLimiter.acquire(prompt.length() / CHARS_PER_TOKEN));
+    }
+
+    // local servers usually run without a key
+    private WebClient.RequestBodySpec post() {
+        WebClient.RequestBodySpec request = webClient.post().uri("/chat/completions");
+        return apiKey.isBlank() ? request : request.header(HttpHeaders.AUTHORIZATION, "Bearer " + apiKey);
+    }
+
+    private Mono<String> complete(String operation, String prompt) {
+        Mono<Map> call = post()
+                .body(BodyInserters.fromValue(requestBody(prompt, false)))
+                .retrieve()
+                .bodyToMono(Map.class);
+
+        // each attempt, retries included, waits for its own slot in the rate limiter
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return acquirePermits(prompt)
+                    .then(call)
+                    .retryWhen(retry)
+                    .map(this::extractContent)
+                    .doOnSuccess(summary -> pipelineMetrics.recordProviderCall(name, model, operation, "success", start))
+                    .doOnError(e -> pipelineMetrics.recordProviderCall(name, model, operation, outcome(e), start));
+        })
+                .doOnSuccess(summary -> logger.info("Summary generated successfully."))
+                .onErrorMap(e -> !(e instanceof SummarizationException),
+                        e -> new SummarizationException(name + " API call failed: " + e.getMessage(), e));
+    }
+
+    private Flux<String> stream(String operation, String prompt) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            // once part of the answer has gone out, a retry would repeat it, so only retry before that
+            AtomicBoolean emitted = new AtomicBoolean();
+            Flux<String> call = post()
+                    .accept(MediaType.TEXT_EVENT_STREAM)
+                    .body(BodyInserters.fromValue(requestBody(prompt, true)))
+                    .retrieve()
+                    .bodyToFlux(SERVER_SENT_EVENTS)
+                    .mapNotNull(ServerSentEvent::data)
+                    .takeWhile(data -> !STREAM_DONE.equals(data.trim()))
+                    .mapNotNull(this::extractDelta)
+                    .doOnNext(delta -> emitted.set(true));
+            return acquirePermits(prompt)
+                    .thenMany(call)
+                    .retryWhen(retry.filter(e -> !emitted.get() && isRetryable(e)))
+                    .doOnComplete(() -> pipelineMetrics.recordProviderCall(name, model, operation, "success", start))
+                    .doOnError(e -> pipelineMetrics.recordProviderCall(name, model, operation, outcome(e), start));
+        }).onErrorMap(e -> !(e instanceof SummarizationException),
+                e -> new SummarizationException(name + " streaming call failed: " + e.getMessage(), e));
+    }
+
+    // content of one chat.completion.chunk, or null for chunks without text (role header, finish reason)
+    private String extractDelta(String data) {
+        try {
+            JsonNode content = OBJECT_MAPPER.readTree(data).path("choices").path(0).path("delta").path("content");
+            return content.isTextual() && !content.asText().isEmpty() ? content.asText() : null;
+        } catch (JsonProcessingException e) {
+            throw new SummarizationException("Malformed streaming chunk from " + name + ": " + e.getOriginalMessage(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private String extractContent(Map<String, Object> response) {
+        if (response.containsKey("choices")) {
+            List<Map<String, Object>> choices = (List<Map<String, Object>>) response.get("choices");
+            if (!choices.isEmpty()) {
+                Map<String, Object> firstChoice = choices.get(0);
+                if (firstChoice.containsKey("message")) {
+                    Map<String, Object> messageContent = (Map<String, Object>) firstChoice.get("message");
+                    if (messageContent.get("content") instanceof String summary) {
+                        return summary;
+                    }
+                }
+            }
+        }
+        logger.warning(name + " API response did not contain expected summary content.");
+        throw new SummarizationException(name + " API response did not contain summary content.");
+    }
+
+    // 429 and 5xx are worth another attempt, as are timeouts and connection failures
+    private static boolean isRetryable(Throwable e) {
+        if (e instanceof WebClientResponseException responseException) {
+            int status = responseException.getStatusCode().value();
+            return status == 429 || status >= 500;
+        }
+        return e instanceof WebClientRequestException || e instanceof TimeoutException;
+    }
+
+    // low-cardinality outcome tag for summarization.requests
+    private static String outcome(Throwable e) {
+        if (e instanceof WebClientResponseException responseException) {
+            int status = responseException.getStatusCode().value();
+            return status == 429 ? "rate_limited" : status >= 500 ? "server_error" : "client_error";
+        }
+        if (e instanceof TimeoutException || e.getCause() instanceof TimeoutException) {
+            return "timeout";
+        }
+        return e instanceof WebClientRequestException ? "connection_error" : "error";
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connectionProvider.dispose();
+    }
+}
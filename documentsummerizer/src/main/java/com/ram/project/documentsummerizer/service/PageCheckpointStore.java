@@ -0,0 +1,47 @@
+package com.ram.project.documentsummerizer.service;
+
+import com.ram.project.documentsummerizer.model.PageCheckpoint;
+import com.ram.project.documentsummerizer.repository.PageCheckpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+// Per-page OCR checkpoints. Failures are logged and swallowed: a lost checkpoint only means that page is
+// recognised again on the next run, which is no reason to fail the current one.
+@Service
+public class PageCheckpointStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageCheckpointStore.class);
+
+    private final PageCheckpointRepository repository;
+
+    public PageCheckpointStore(PageCheckpointRepository repository) {
+        this.repository = repository;
+    }
+
+    public void save(String documentId, int page, String text) {
+        try {
+            repository.save(new PageCheckpoint(documentId, page, text));
+        } catch (Exception e) {
+            logger.warn("Could not checkpoint page {} of document {}: {}", page, documentId, e.getMessage());
+        }
+    }
+
+    // page index to text, in page order
+    public Map<Integer, String> load(String documentId) {
+        Map<Integer, String> pages = new TreeMap<>();
+        repository.findByDocumentId(documentId).forEach(checkpoint -> pages.put(checkpoint.getPage(), checkpoint.getText()));
+        return pages;
+    }
+
+    public void delete(String documentId) {
+        try {
+            repository.deleteByDocumentId(documentId);
+        } catch (Exception e) {
+            logger.warn("Could not delete page checkpoints of document {}: {}", documentId, e.getMessage());
+        }
+    }
+}
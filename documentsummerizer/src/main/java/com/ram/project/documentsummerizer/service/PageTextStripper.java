@@ -0,0 +1,42 @@
+package com.ram.project.documentsummerizer.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+// PDFTextStripper that keeps the text of each page separately in a single pass over the document.
+// Pages without a content stream are never visited by the stripper and stay "".
+class PageTextStripper extends PDFTextStripper {
+
+    private StringWriter buffer;
+    private String[] pages;
+    private int pageStart;
+
+    PageTextStripper() throws IOException {
+        super();
+    }
+
+    String[] extractPages(PDDocument document) throws IOException {
+        buffer = new StringWriter();
+        pages = new String[document.getNumberOfPages()];
+        Arrays.fill(pages, "");
+        writeText(document, buffer);
+        return pages;
+    }
+
+    @Override
+    protected void startPage(PDPage page) throws IOException {
+        super.startPage(page);
+        pageStart = buffer.getBuffer().length();
+    }
+
+    @Override
+    protected void endPage(PDPage page) throws IOException {
+        super.endPage(page);
+        pages[getCurrentPageNo() - 1] = buffer.getBuffer().substring(pageStart);
+    }
+}
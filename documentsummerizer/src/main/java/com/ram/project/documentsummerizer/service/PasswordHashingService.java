@@ -0,0 +1,73 @@
+package com.ram.project.documentsummerizer.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Runs BCrypt-bound work (register, login) on its own small pool so a burst of logins queues up there
+// instead of tying up servlet threads the document API needs. The queue is bounded, once it is full
+// callers get a TaskRejectedException straight away and the controller answers 429.
+@Service
+public class PasswordHashingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    private final ThreadPoolTaskExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final Timer queueWait;
+    private final Counter rejected;
+
+    public PasswordHashingService(@Qualifier("passwordHashingExecutor") ThreadPoolTaskExecutor executor,
+                                  MeterRegistry meterRegistry) {
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.queueWait = Timer.builder("auth.password.hashing.queue.wait")
+                .description("Time password hashing tasks wait for a worker")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("auth.password.hashing.rejected")
+                .description("Password hashing tasks rejected because the queue was full")
+                .register(meterRegistry);
+        Gauge.builder("auth.password.hashing.queue.size", executor, ThreadPoolTaskExecutor::getQueueSize)
+                .register(meterRegistry);
+        Gauge.builder("auth.password.hashing.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    public <T> CompletableFuture<T> submit(String operation, Supplier<T> task) {
+        long queuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                queueWait.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                long start = System.nanoTime();
+                String outcome = "failure";
+                try {
+                    T result = task.get();
+                    outcome = "success";
+                    return result;
+                } finally {
+                    Timer.builder("auth.password.hashing")
+                            .description("Time spent in BCrypt-bound auth operations")
+                            .tag("operation", operation)
+                            .tag("outcome", outcome)
+                            .register(meterRegistry)
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }, executor);
+        } catch (TaskRejectedException e) {
+            rejected.increment();
+            logger.warn("Password hashing pool is saturated, rejecting {} request", operation);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.ram.project.documentsummerizer.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Meters for the upload pipeline, scraped from /actuator/prometheus. Stage and provider timers publish
+// histogram buckets so latency percentiles can be aggregated across instances.
+//   documents.pipeline.stage{stage}          pdf_load, text_extraction, quality_check, page_probe, page_render,
+//                                            page_preprocess, page_ocr, summarization, text_store, mongo_save,
+//                                            admission_estimate
+//   summarization.requests{provider,model,operation,outcome}
+//                                            one sample per call, retries and rate-limit waits included
+//   documents.ocr.fallback{scope}            partial (some pages) or full (whole document)
+//   documents.ocr.pages.skipped              pages found blank by OCR preprocessing
+//   documents.summary.truncated
+//   documents.admission.decisions{lane,outcome}
+//                                            fast/normal lane, admitted, rejected_quota, rejected_saturated or deferred
+@Component
+public class PipelineMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Counter partialOcrFallback;
+    private final Counter fullOcrFallback;
+    private final Counter summaryTruncated;
+    private final Counter ocrPagesSkipped;
+
+    public PipelineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.partialOcrFallback = ocrFallbackCounter("partial");
+        this.fullOcrFallback = ocrFallbackCounter("full");
+        this.summaryTruncated = Counter.builder("documents.summary.truncated")
+                .description("Documents whose text was cut to fit a single summarization call")
+                .register(meterRegistry);
+        this.ocrPagesSkipped = Counter.builder("documents.ocr.pages.skipped")
+                .description("Pages left out of OCR because preprocessing found no text on them")
+                .register(meterRegistry);
+    }
+
+    public void recordStage(String stage, long startNanos) {
+        Timer.builder("documents.pipeline.stage")
+                .description("Time spent in each document pipeline stage")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordProviderCall(String provider, String model, String operation, String outcome, long startNanos) {
+        Timer.builder("summarization.requests")
+                .description("Chat completion calls to summarization providers")
+                .tag("provider", provider)
+                .tag("model", model)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void ocrFallback(boolean wholeDocument) {
+        (wholeDocument ? fullOcrFallback : partialOcrFallback).increment();
+    }
+
+    public void ocrPageSkipped() {
+        ocrPagesSkipped.increment();
+    }
+
+    public void summaryTruncated() {
+        summaryTruncated.increment();
+    }
+
+    public void admissionDecision(String lane, String outcome) {
+        Counter.builder("documents.admission.decisions")
+                .description("Upload admission decisions by lane and outcome")
+                .tag("lane", lane)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void queueGauge(String name, String description, Supplier<Number> depth) {
+        Gauge.builder(name, depth).description(description).register(meterRegistry);
+    }
+
+    private Counter ocrFallbackCounter(String scope) {
+        return Counter.builder("documents.ocr.fallback")
+                .description("Documents that needed OCR because native text was insufficient")
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+}
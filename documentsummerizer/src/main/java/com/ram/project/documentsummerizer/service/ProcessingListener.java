@@ -0,0 +1,19 @@
+package com.ram.project.documentsummerizer.service;
+
+import com.ram.project.documentsummerizer.model.Document;
+import com.ram.project.documentsummerizer.model.JobStage;
+import com.ram.project.documentsummerizer.model.StageStatus;
+
+// Callback for progress reporting out of DocumentService. The synchronous upload uses NONE.
+public interface ProcessingListener {
+
+    ProcessingListener NONE = new ProcessingListener() {};
+
+    default void stageStarted(JobStage stage) {}
+
+    default void stageProgress(JobStage stage, int completed, int total) {}
+
+    default void stageFinished(JobStage stage, StageStatus status) {}
+
+    default void documentSaved(Document document) {}
+}
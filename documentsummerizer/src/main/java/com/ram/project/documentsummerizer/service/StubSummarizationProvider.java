@@ -0,0 +1,75 @@
+package com.ram.project.documentsummerizer.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// No model at all: the "summary" is the first few sentences of the input, after an optional fixed delay.
+// Same input, same output, so load tests and CI can run the whole pipeline offline.
+@Service
+@ConditionalOnProperty(name = "summary.stub.enabled", havingValue = "true")
+public class StubSummarizationProvider implements SummarizationProvider {
+
+    private static final Pattern SENTENCE_END = Pattern.compile("(?<=[.!?])\\s+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int SENTENCES = 3;
+    private static final int MAX_LENGTH = 500;
+
+    private final Duration latency;
+
+    public StubSummarizationProvider(@Value("${summary.stub.latency:0ms}") Duration latency) {
+        this.latency = latency;
+    }
+
+    @Override
+    public String name() {
+        return "stub";
+    }
+
+    @Override
+    public Mono<String> summarize(String text) {
+        return delayed(lead(text));
+    }
+
+    @Override
+    public Mono<String> summarizeChunk(String chunk, int index, int total) {
+        return delayed(lead(chunk));
+    }
+
+    @Override
+    public Mono<String> mergeSummaries(List<String> partialSummaries) {
+        return delayed(lead(String.join(" ", partialSummaries)));
+    }
+
+    @Override
+    public Flux<String> streamSummary(String text) {
+        return summarize(text).flatMapMany(StubSummarizationProvider::words);
+    }
+
+    @Override
+    public Flux<String> streamMergedSummary(List<String> partialSummaries) {
+        return mergeSummaries(partialSummaries).flatMapMany(StubSummarizationProvider::words);
+    }
+
+    private Mono<String> delayed(String summary) {
+        return latency.isZero() ? Mono.just(summary) : Mono.delay(latency).thenReturn(summary);
+    }
+
+    private static String lead(String text) {
+        String[] sentences = SENTENCE_END.split(WHITESPACE.matcher(text.strip()).replaceAll(" "), SENTENCES + 1);
+        String lead = String.join(" ", List.of(sentences).subList(0, Math.min(SENTENCES, sentences.length)));
+        return lead.length() > MAX_LENGTH ? lead.substring(0, MAX_LENGTH) : lead;
+    }
+
+    // stream the way a model would, a word (with its trailing space) per token
+    private static Flux<String> words(String summary) {
+        String[] words = summary.split(" ");
+        return Flux.range(0, words.length).map(i -> i < words.length - 1 ? words[i] + " " : words[i]);
+    }
+}
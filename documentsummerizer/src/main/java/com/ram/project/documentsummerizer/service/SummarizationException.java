@@ -0,0 +1,12 @@
+package com.ram.project.documentsummerizer.service;
+
+public class SummarizationException extends RuntimeException {
+
+    public SummarizationException(String message) {
+        super(message);
+    }
+
+    public SummarizationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,26 @@
+package com.ram.project.documentsummerizer.service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// A backend that can summarize text. Failures surface as SummarizationException. DocumentService and
+// ChunkedSummarizer get the SummarizationRouter, which picks one of the other providers per call.
+public interface SummarizationProvider {
+
+    // used in routing config and as the provider tag on summarization.requests
+    String name();
+
+    Mono<String> summarize(String text);
+
+    // map step of chunked summarization: part index (1-based) of total
+    Mono<String> summarizeChunk(String chunk, int index, int total);
+
+    // reduce step: partial summaries in document order
+    Mono<String> mergeSummaries(List<String> partialSummaries);
+
+    Flux<String> streamSummary(String text);
+
+    Flux<String> streamMergedSummary(List<String> partialSummaries);
+}
@@ -0,0 +1,179 @@
+package com.ram.project.documentsummerizer.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+// The SummarizationProvider everyone else gets. Inputs up to summary.routing.small-max-chars go to the
+// small provider (a cheaper model), everything else to the default one. If that call fails, or its circuit
+// is open, the providers in summary.routing.failover are tried in order. A stream only fails over before
+// its first token, after that a switch would repeat or contradict what was already sent.
+@Service
+@Primary
+public class SummarizationRouter implements SummarizationProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(SummarizationRouter.class);
+
+    private final Map<String, Route> routes = new LinkedHashMap<>();
+    private final Route defaultRoute;
+    private final Route smallRoute;
+    private final int smallMaxChars;
+    private final List<Route> failover = new ArrayList<>();
+
+    // Spring leaves the router itself out of the injected list
+    public SummarizationRouter(List<SummarizationProvider> providers,
+                               @Value("${summary.routing.default-provider:groq}") String defaultProvider,
+                               @Value("${summary.routing.small-provider:}") String smallProvider,
+                               @Value("${summary.routing.small-max-chars:8000}") int smallMaxChars,
+                               @Value("${summary.routing.failover:}") String failoverProviders,
+                               @Value("${summary.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                               @Value("${summary.circuit-breaker.open-duration:30s}") Duration openDuration) {
+        for (SummarizationProvider provider : providers) {
+            routes.put(provider.name(), new Route(provider, new CircuitBreaker(failureThreshold, openDuration)));
+        }
+        this.defaultRoute = route(defaultProvider);
+        this.smallRoute = smallProvider.isBlank() ? defaultRoute : route(smallProvider);
+        this.smallMaxChars = smallMaxChars;
+        Arrays.stream(failoverProviders.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .forEach(name -> failover.add(route(name)));
+        logger.info("Summarization providers {}: default {}, small (<= {} chars) {}, failover {}", routes.keySet(),
+                defaultProvider, smallMaxChars, smallRoute.provider().name(),
+                failover.stream().map(route -> route.provider().name()).toList());
+    }
+
+    @Override
+    public String name() {
+        return "router";
+    }
+
+    @Override
+    public Mono<String> summarize(String text) {
+        return call(text.length(), provider -> provider.summarize(text));
+    }
+
+    @Override
+    public Mono<String> summarizeChunk(String chunk, int index, int total) {
+        return call(chunk.length(), provider -> provider.summarizeChunk(chunk, index, total));
+    }
+
+    @Override
+    public Mono<String> mergeSummaries(List<String> partialSummaries) {
+        return call(totalLength(partialSummaries), provider -> provider.mergeSummaries(partialSummaries));
+    }
+
+    @Override
+    public Flux<String> streamSummary(String text) {
+        return stream(text.length(), provider -> provider.streamSummary(text));
+    }
+
+    @Override
+    public Flux<String> streamMergedSummary(List<String> partialSummaries) {
+        return stream(totalLength(partialSummaries), provider -> provider.streamMergedSummary(partialSummaries));
+    }
+
+    private Route route(String name) {
+        Route route = routes.get(name);
+        if (route == null) {
+            throw new IllegalStateException("Unknown summarization provider '" + name + "', enabled providers: " + routes.keySet());
+        }
+        return route;
+    }
+
+    private List<Route> candidates(int length) {
+        List<Route> candidates = new ArrayList<>();
+        candidates.add(length <= smallMaxChars ? smallRoute : defaultRoute);
+        failover.stream().filter(route -> !candidates.contains(route)).forEach(candidates::add);
+        return candidates;
+    }
+
+    private <T> Mono<T> call(int length, Function<SummarizationProvider, Mono<T>> operation) {
+        return attempt(candidates(length), 0, operation, null);
+    }
+
+    private <T> Mono<T> attempt(List<Route> candidates, int next, Function<SummarizationProvider, Mono<T>> operation,
+                                Throwable lastError) {
+        return Mono.defer(() -> {
+            int index = nextAllowed(candidates, next);
+            if (index < 0) {
+                return Mono.error(exhausted(lastError));
+            }
+            Route route = candidates.get(index);
+            return operation.apply(route.provider())
+                    .doOnSuccess(result -> route.breaker().recordSuccess())
+                    .onErrorResume(e -> {
+                        failed(route, e);
+                        return attempt(candidates, index + 1, operation, e);
+                    });
+        });
+    }
+
+    private Flux<String> stream(int length, Function<SummarizationProvider, Flux<String>> operation) {
+        return attemptStream(candidates(length), 0, operation, null);
+    }
+
+    private Flux<String> attemptStream(List<Route> candidates, int next,
+                                       Function<SummarizationProvider, Flux<String>> operation, Throwable lastError) {
+        return Flux.defer(() -> {
+            int index = nextAllowed(candidates, next);
+            if (index < 0) {
+                return Flux.error(exhausted(lastError));
+            }
+            Route route = candidates.get(index);
+            AtomicBoolean emitted = new AtomicBoolean();
+            return operation.apply(route.provider())
+                    .doOnNext(token -> emitted.set(true))
+                    .doOnComplete(() -> route.breaker().recordSuccess())
+                    .onErrorResume(e -> {
+                        failed(route, e);
+                        return emitted.get() ? Flux.error(e) : attemptStream(candidates, index + 1, operation, e);
+                    });
+        });
+    }
+
+    private static int nextAllowed(List<Route> candidates, int from) {
+        for (int i = from; i < candidates.size(); i++) {
+            if (candidates.get(i).breaker().allowsCall()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void failed(Route route, Throwable e) {
+        if (route.breaker().recordFailure()) {
+            logger.warn("Summarization provider {} failed ({}), circuit open", route.provider().name(), e.getMessage());
+        } else {
+            logger.warn("Summarization provider {} failed: {}", route.provider().name(), e.getMessage());
+        }
+    }
+
+    private static Throwable exhausted(Throwable lastError) {
+        if (lastError instanceof SummarizationException) {
+            return lastError;
+        }
+        return lastError != null
+                ? new SummarizationException("Summarization failed: " + lastError.getMessage(), lastError)
+                : new SummarizationException("No summarization provider is available right now (all circuits open).");
+    }
+
+    private static int totalLength(List<String> texts) {
+        return texts.stream().mapToInt(String::length).sum();
+    }
+
+    private record Route(SummarizationProvider provider, CircuitBreaker breaker) {}
+}
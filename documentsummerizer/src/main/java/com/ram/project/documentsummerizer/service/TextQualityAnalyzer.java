@@ -0,0 +1,155 @@
+package com.ram.project.documentsummerizer.service;
+
+import java.util.List;
+
+// One pass over the text, no copies, for the checks that used to run replaceAll/split/stream over
+// the whole string. Word and length rules are exactly the old ones: a word is a run of non-whitespace
+// (regex \s) characters containing at least one ASCII letter or digit, counted by those characters
+// only, and the "cleaned" length is the old replaceAll/trim/collapse result: alphanumerics plus one
+// space between words.
+final class TextQualityAnalyzer {
+
+    private static final int MEANINGFUL_WORD_LENGTH = 3;
+    private static final int MIN_MEANINGFUL_WORDS = 5;
+    private static final double POOR_QUALITY_DENSITY = 0.2;
+    private static final int SHORT_HANDWRITTEN_LENGTH = 200;
+    // a line is garbage when less than half of its visible characters are letters or digits
+    private static final double GARBAGE_LINE_ALNUM_RATIO = 0.5;
+
+    private TextQualityAnalyzer() {
+    }
+
+    record Score(int length, int asciiAlphanumerics, int words, int meaningfulWords, int lettersOrDigits,
+                 int letters, int nonAsciiLetters, int lines, int garbageLines, boolean blank) {
+
+        int cleanedLength() {
+            return words == 0 ? 0 : asciiAlphanumerics + words - 1;
+        }
+
+        double alphanumericDensity() {
+            return length == 0 ? 0 : (double) lettersOrDigits / length;
+        }
+
+        double garbageLineRatio() {
+            return lines == 0 ? 0 : (double) garbageLines / lines;
+        }
+
+        // share of letters outside ASCII, a hint that the text is not in the OCR language or is mis-decoded
+        double nonAsciiLetterRatio() {
+            return letters == 0 ? 0 : (double) nonAsciiLetters / letters;
+        }
+
+        boolean isSufficient(int minLength) {
+            return !blank && cleanedLength() >= minLength && meaningfulWords >= MIN_MEANINGFUL_WORDS;
+        }
+
+        boolean isLikelyHandwrittenOrPoorQuality(String fileName) {
+            if (length < SHORT_HANDWRITTEN_LENGTH && fileName.toLowerCase().contains("handwritten")) {
+                return true;
+            }
+            return length > 0 && alphanumericDensity() < POOR_QUALITY_DENSITY;
+        }
+    }
+
+    static Score analyze(CharSequence text) {
+        int length = text.length();
+        int asciiAlphanumerics = 0;
+        int words = 0;
+        int meaningfulWords = 0;
+        int lettersOrDigits = 0;
+        int letters = 0;
+        int nonAsciiLetters = 0;
+        int lines = 0;
+        int garbageLines = 0;
+        boolean blank = true;
+
+        int wordAlphanumerics = 0;
+        int lineVisible = 0;
+        int lineLettersOrDigits = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c > ' ') {
+                blank = false;
+            }
+            if (isRegexWhitespace(c)) {
+                if (wordAlphanumerics > 0) {
+                    words++;
+                    if (wordAlphanumerics >= MEANINGFUL_WORD_LENGTH) {
+                        meaningfulWords++;
+                    }
+                    wordAlphanumerics = 0;
+                }
+                if (c == '\n' && lineVisible > 0) {
+                    lines++;
+                    if (lineLettersOrDigits < lineVisible * GARBAGE_LINE_ALNUM_RATIO) {
+                        garbageLines++;
+                    }
+                    lineVisible = 0;
+                    lineLettersOrDigits = 0;
+                }
+                continue;
+            }
+            lineVisible++;
+            if (isAsciiAlphanumeric(c)) {
+                asciiAlphanumerics++;
+                wordAlphanumerics++;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                lettersOrDigits++;
+                lineLettersOrDigits++;
+                if (Character.isLetter(c)) {
+                    letters++;
+                    if (c > 0x7F) {
+                        nonAsciiLetters++;
+                    }
+                }
+            }
+        }
+        if (wordAlphanumerics > 0) {
+            words++;
+            if (wordAlphanumerics >= MEANINGFUL_WORD_LENGTH) {
+                meaningfulWords++;
+            }
+        }
+        if (lineVisible > 0) {
+            lines++;
+            if (lineLettersOrDigits < lineVisible * GARBAGE_LINE_ALNUM_RATIO) {
+                garbageLines++;
+            }
+        }
+        return new Score(length, asciiAlphanumerics, words, meaningfulWords, lettersOrDigits, letters,
+                nonAsciiLetters, lines, garbageLines, blank);
+    }
+
+    // score of String.join("\n", texts) from the scores of the parts, without another pass: the
+    // newline ends a word and a line, so every count simply adds up
+    static Score join(List<Score> scores) {
+        int length = Math.max(0, scores.size() - 1);
+        int asciiAlphanumerics = 0, words = 0, meaningfulWords = 0, lettersOrDigits = 0;
+        int letters = 0, nonAsciiLetters = 0, lines = 0, garbageLines = 0;
+        boolean blank = true;
+        for (Score score : scores) {
+            length += score.length();
+            asciiAlphanumerics += score.asciiAlphanumerics();
+            words += score.words();
+            meaningfulWords += score.meaningfulWords();
+            lettersOrDigits += score.lettersOrDigits();
+            letters += score.letters();
+            nonAsciiLetters += score.nonAsciiLetters();
+            lines += score.lines();
+            garbageLines += score.garbageLines();
+            blank &= score.blank();
+        }
+        return new Score(length, asciiAlphanumerics, words, meaningfulWords, lettersOrDigits, letters,
+                nonAsciiLetters, lines, garbageLines, blank);
+    }
+
+    // java.util.regex \s without UNICODE_CHARACTER_CLASS
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isAsciiAlphanumeric(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+}
@@ -0,0 +1,41 @@
+package com.ram.project.documentsummerizer.service;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+// Reservation-style token bucket. acquire() never blocks a thread: on subscription it books the permits
+// (the balance may go negative) and completes once the booking is covered. The booking happens per subscription,
+// not when the Mono is built, so a retried or repeated pipeline pays again on every attempt.
+public class TokenBucketRateLimiter {
+
+    private final long capacity;
+    private final double refillPerNano;
+    private double available;
+    private long lastRefill;
+
+    public TokenBucketRateLimiter(long capacity, Duration refillPeriod) {
+        this.capacity = capacity;
+        this.refillPerNano = (double) capacity / refillPeriod.toNanos();
+        this.available = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    public Mono<Void> acquire(long permits) {
+        return Mono.defer(() -> {
+            Duration wait = reserve(Math.min(permits, capacity));
+            return wait.isZero() ? Mono.<Void>empty() : Mono.delay(wait).then();
+        });
+    }
+
+    synchronized Duration reserve(long permits) {
+        long now = System.nanoTime();
+        available = Math.min(capacity, available + (now - lastRefill) * refillPerNano);
+        lastRefill = now;
+        available -= permits;
+        if (available >= 0) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos((long) Math.ceil(-available / refillPerNano));
+    }
+}
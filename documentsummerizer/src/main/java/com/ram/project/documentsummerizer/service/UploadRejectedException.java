@@ -0,0 +1,16 @@
+package com.ram.project.documentsummerizer.service;
+
+// Thrown by AdmissionService when an upload has to wait, answered with 429 and Retry-After.
+public class UploadRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public UploadRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
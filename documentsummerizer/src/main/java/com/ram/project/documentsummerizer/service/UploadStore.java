@@ -0,0 +1,67 @@
+package com.ram.project.documentsummerizer.service;
+
+import com.mongodb.client.gridfs.model.GridFSFile;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+// Original PDFs in the uploads GridFS bucket: async uploads waiting for a worker, and the sources of
+// documents whose text is incomplete, kept so a reprocess can OCR the missing pages.
+@Service
+public class UploadStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(UploadStore.class);
+
+    private final GridFsTemplate gridFsTemplate;
+
+    public UploadStore(@Qualifier("uploadGridFs") GridFsTemplate gridFsTemplate) {
+        this.gridFsTemplate = gridFsTemplate;
+    }
+
+    public String store(InputStreamSource source, String originalFileName) throws IOException {
+        try (InputStream in = source.getInputStream()) {
+            return gridFsTemplate.store(in, originalFileName, "application/pdf").toHexString();
+        }
+    }
+
+    // copies the upload into a temp file so PDFBox can read it from disk, the caller deletes the file
+    public Path download(String uploadId) throws IOException {
+        GridFSFile file = gridFsTemplate.findOne(byId(uploadId));
+        if (file == null) {
+            throw new FileNotFoundException("Upload " + uploadId + " not found");
+        }
+        Path target = Files.createTempFile("briefify-upload-", ".pdf");
+        try (InputStream in = gridFsTemplate.getResource(file).getInputStream()) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        return target;
+    }
+
+    public void delete(String uploadId) {
+        try {
+            gridFsTemplate.delete(byId(uploadId));
+        } catch (Exception e) {
+            logger.warn("Could not delete upload {}: {}", uploadId, e.getMessage());
+        }
+    }
+
+    private static Query byId(String uploadId) {
+        return Query.query(Criteria.where("_id").is(new ObjectId(uploadId)));
+    }
+}
@@ -0,0 +1,98 @@
+package com.ram.project.documentsummerizer.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.ram.project.documentsummerizer.model.User;
+import com.ram.project.documentsummerizer.service.AuthService;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtPrincipalCacheTest {
+
+    private final AuthService authService = new AuthService(null, null);
+    private final JwtPrincipalCache principalCache = new JwtPrincipalCache(authService, 100);
+
+    @Test
+    void aVerifiedTokenIsCachedUntilItsExpClaim() {
+        Instant exp = Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS);
+        String token = token("user-1", exp, secret());
+
+        assertThat(principalCache.resolve(token)).map(User::getId).contains("user-1");
+
+        long expiresAfter = cache().policy().expireVariably().orElseThrow()
+                .getExpiresAfter(key(token), TimeUnit.MILLISECONDS).orElseThrow();
+        long untilExp = exp.toEpochMilli() - System.currentTimeMillis();
+        assertThat(expiresAfter).isBetween(untilExp - 1000, untilExp);
+        assertThat(principalCache.resolve(token)).map(User::getUsername).contains("alice");
+    }
+
+    @Test
+    void aTamperedTokenIsRejectedAndNotCached() {
+        String token = token("user-1", Instant.now().plus(1, ChronoUnit.HOURS), secret());
+        String payloadSwapped = token.substring(0, token.indexOf('.') + 1)
+                + token("admin", Instant.now().plus(1, ChronoUnit.HOURS), secret()).split("\\.")[1]
+                + token.substring(token.lastIndexOf('.'));
+        String foreignKey = token("user-1", Instant.now().plus(1, ChronoUnit.HOURS),
+                Jwts.SIG.HS256.key().build());
+
+        assertThat(principalCache.resolve(payloadSwapped)).isEmpty();
+        assertThat(principalCache.resolve(foreignKey)).isEmpty();
+        assertThat(cache().estimatedSize()).isZero();
+    }
+
+    @Test
+    void anExpiredOrIncompleteTokenIsRejected() {
+        String expired = token("user-1", Instant.now().minus(1, ChronoUnit.MINUTES), secret());
+        String withoutId = Jwts.builder().subject("alice").expiration(Date.from(Instant.now().plus(1, ChronoUnit.HOURS)))
+                .signWith(secret()).compact();
+        String withoutExp = Jwts.builder().subject("alice").claim("id", "user-1").signWith(secret()).compact();
+
+        assertThat(principalCache.resolve(expired)).isEmpty();
+        assertThat(principalCache.resolve(withoutId)).isEmpty();
+        assertThat(principalCache.resolve(withoutExp)).isEmpty();
+        assertThat(cache().estimatedSize()).isZero();
+    }
+
+    @Test
+    void aCachedPrincipalIsNotServedOnceItsTokenExpired() throws InterruptedException {
+        Instant exp = Instant.now().plusSeconds(2).truncatedTo(ChronoUnit.SECONDS);
+        String token = token("user-1", exp, secret());
+        assertThat(principalCache.resolve(token)).isPresent();
+
+        Thread.sleep(Math.max(0, exp.toEpochMilli() - System.currentTimeMillis()) + 50);
+
+        assertThat(principalCache.resolve(token)).isEmpty();
+        assertThat(cache().getIfPresent(key(token))).isNull();
+    }
+
+    private String token(String userId, Instant exp, SecretKey key) {
+        return Jwts.builder()
+                .subject("alice")
+                .claim("id", userId)
+                .expiration(Date.from(exp))
+                .signWith(key)
+                .compact();
+    }
+
+    // the key AuthService signs and verifies with
+    private SecretKey secret() {
+        return (SecretKey) ReflectionTestUtils.getField(authService, "jwtSecret");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cache<String, Object> cache() {
+        return (Cache<String, Object>) ReflectionTestUtils.getField(principalCache, "cache");
+    }
+
+    private static String key(String token) {
+        return ReflectionTestUtils.invokeMethod(JwtPrincipalCache.class, "sha256", token);
+    }
+}
@@ -0,0 +1,105 @@
+package com.ram.project.documentsummerizer.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.rendering.ImageType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdmissionServiceTest {
+
+    private static final String LINE = "The quarterly report covers revenue, costs and the outlook for next year.";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PipelineMetrics pipelineMetrics = new PipelineMetrics(meterRegistry);
+    private final OcrService ocrService = new OcrService("unused", "eng", 300, ImageType.GRAY, 2, 0, pipelineMetrics,
+            new OcrImagePreprocessor(false, 0.001, false, 150, 40, false, 0.3));
+    // CPU threshold above 1 so a busy build machine can not make these tests flaky
+    private final AdmissionService admission = new AdmissionService(ocrService, pipelineMetrics,
+            true, 8, 50, 2, 100, 1.1, 2);
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void shutdown() {
+        ocrService.shutdown();
+    }
+
+    @Test
+    void estimatesOcrPagesFromTheShareOfPagesWithoutNativeText() throws IOException {
+        AdmissionService.Estimate nativeOnly = admission.estimate(pdf(10, 0));
+        assertThat(nativeOnly.pages()).isEqualTo(10);
+        assertThat(nativeOnly.ocrPages()).isZero();
+        assertThat(nativeOnly.fastLane()).isTrue();
+
+        AdmissionService.Estimate scanned = admission.estimate(pdf(4, 4));
+        assertThat(scanned.ocrPages()).isEqualTo(4);
+        assertThat(scanned.fastLane()).isFalse();
+    }
+
+    @Test
+    void fastLaneIsAdmittedEvenWhenTheUserIsOverQuota() {
+        AdmissionService.Estimate heavy = new AdmissionService.Estimate(20, 20, false);
+        admission.tryAdmit("alice", heavy);
+        admission.tryAdmit("alice", heavy);
+
+        assertThatThrownBy(() -> admission.tryAdmit("alice", heavy)).isInstanceOf(UploadRejectedException.class);
+        admission.tryAdmit("alice", new AdmissionService.Estimate(3, 0, true)).close();
+        // other users are not affected by alice's quota
+        admission.tryAdmit("bob", heavy).close();
+    }
+
+    @Test
+    void rejectsOnceTheOcrBudgetIsUsedUpAndAdmitsAgainAfterRelease() {
+        AdmissionService.Ticket first = admission.tryAdmit("alice", new AdmissionService.Estimate(80, 80, false));
+
+        assertThatThrownBy(() -> admission.tryAdmit("bob", new AdmissionService.Estimate(40, 40, false)))
+                .isInstanceOf(UploadRejectedException.class)
+                .satisfies(e -> assertThat(((UploadRejectedException) e).getRetryAfterSeconds()).isBetween(5L, 300L));
+        assertThat(admission.isSaturated()).isFalse();
+
+        first.close();
+        first.close();
+        admission.tryAdmit("bob", new AdmissionService.Estimate(40, 40, false)).close();
+        // a document bigger than the whole budget still runs when nothing else is pending
+        admission.tryAdmit("carol", new AdmissionService.Estimate(500, 500, false)).close();
+    }
+
+    // nativePages pages of text followed by blankPages empty ones
+    private Path pdf(int nativePages, int blankPages) throws IOException {
+        Path file = dir.resolve("doc-" + nativePages + "-" + blankPages + ".pdf");
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < nativePages; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 11);
+                    content.setLeading(14);
+                    content.newLineAtOffset(50, 700);
+                    for (int line = 0; line < 5; line++) {
+                        content.showText(LINE);
+                        content.newLine();
+                    }
+                    content.endText();
+                }
+            }
+            for (int i = 0; i < blankPages; i++) {
+                document.addPage(new PDPage());
+            }
+            document.save(file.toFile());
+        }
+        return file;
+    }
+}
@@ -0,0 +1,281 @@
+package com.ram.project.documentsummerizer.service;
+
+import com.ram.project.documentsummerizer.model.BatchFileResult;
+import com.ram.project.documentsummerizer.model.BatchUpload;
+import com.ram.project.documentsummerizer.model.Document;
+import com.ram.project.documentsummerizer.model.JobStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchUploadServiceTest {
+
+    private final FakeDocumentService documentService = new FakeDocumentService();
+    private final FakeBatchStore batchStore = new FakeBatchStore();
+    private final PipelineMetrics pipelineMetrics = new PipelineMetrics(new SimpleMeterRegistry());
+    private final OcrService ocrService = new OcrService("", "eng", 300, ImageType.GRAY, 1, 0, pipelineMetrics, null);
+    private final FakeAdmissionService admissionService = new FakeAdmissionService(ocrService, pipelineMetrics);
+    private final BatchUploadService batchUploadService = new BatchUploadService(documentService, new InlineExecutor(),
+            batchStore, admissionService, new NodeIdentity("node-a"));
+
+    BatchUploadServiceTest() {
+        documentService.admissionService = admissionService;
+        ReflectionTestUtils.setField(batchUploadService, "concurrency", 2);
+        ReflectionTestUtils.setField(batchUploadService, "flushSize", 2);
+        ReflectionTestUtils.setField(batchUploadService, "maxFiles", 200);
+        ReflectionTestUtils.setField(batchUploadService, "maxArchiveExtractedMb", 1024L);
+        ReflectionTestUtils.setField(batchUploadService, "retentionMinutes", 60L);
+        ReflectionTestUtils.setField(batchUploadService, "lease", Duration.ofSeconds(60));
+        ReflectionTestUtils.setField(batchUploadService, "admissionPollInterval", Duration.ZERO);
+    }
+
+    @AfterEach
+    void shutdownOcr() {
+        ocrService.shutdown();
+    }
+
+    @Test
+    void failedFilesDoNotStopTheRestOfTheBatch() throws IOException {
+        BatchUpload batch = batchUploadService.submitFiles(pdfs("a.pdf", "bad.pdf", "c.pdf", "notes.txt"), "user", false);
+
+        assertThat(batch.isFinished()).isTrue();
+        assertThat(batch.getFiles()).extracting(BatchFileResult::getStatus)
+                .containsExactly(JobStatus.COMPLETED, JobStatus.FAILED, JobStatus.COMPLETED, JobStatus.FAILED);
+        assertThat(batch.getFiles().get(1).getError()).isEqualTo("unreadable PDF");
+        assertThat(batch.getFiles().get(0).getDocumentId()).isEqualTo("doc-a.pdf");
+        // every status change of the three PDFs went to the store, the lease was released at the end
+        assertThat(batchStore.fileUpdates).containsExactlyInAnyOrder(0, 0, 1, 1, 2, 2);
+        assertThat(batchStore.finishedBy).isEqualTo("node-a");
+        assertThat(batch.getOwner()).isNull();
+    }
+
+    @Test
+    void insertsFinishedDocumentsInGroupsOfFlushSize() throws IOException {
+        batchUploadService.submitFiles(pdfs("a.pdf", "b.pdf", "c.pdf", "d.pdf", "e.pdf"), "user", false);
+
+        assertThat(documentService.insertedGroups).containsExactly(2, 2, 1);
+    }
+
+    @Test
+    void failedBulkInsertFallsBackToSingleSavesAndDropsTheTextOfUnsavedDocuments() throws IOException {
+        documentService.failBulkInsert = true;
+
+        BatchUpload batch = batchUploadService.submitFiles(pdfs("a.pdf", "unsaveable.pdf"), "user", false);
+
+        assertThat(batch.getFiles()).extracting(BatchFileResult::getStatus)
+                .containsExactly(JobStatus.COMPLETED, JobStatus.FAILED);
+        assertThat(documentService.saved).containsExactly("doc-a.pdf");
+        assertThat(documentService.discarded).containsExactly("doc-unsaveable.pdf");
+    }
+
+    @Test
+    void finishedBatchesAreGoneOnceTheyAreOlderThanTheRetention() throws IOException {
+        BatchUpload kept = batchUploadService.submitFiles(pdfs("a.pdf"), "user", false);
+        assertThat(batchUploadService.getBatch(kept.getId(), "user")).isPresent();
+        assertThat(batchUploadService.getBatch(kept.getId(), "someone-else")).isEmpty();
+
+        ReflectionTestUtils.setField(batchUploadService, "retentionMinutes", 0L);
+        BatchUpload expired = batchUploadService.submitFiles(pdfs("b.pdf"), "user", false);
+        // the TTL index has not run yet, the batch is still stored but already expired
+        assertThat(batchStore.batches).containsKey(expired.getId());
+        assertThat(batchUploadService.getBatch(expired.getId(), "user")).isEmpty();
+    }
+
+    @Test
+    void aBatchIsTurnedAwayWhileItsUserIsAtTheAdmissionQuota() throws IOException {
+        AdmissionService.Ticket running = admissionService.admit("user", new AdmissionService.Estimate(10, 10, false));
+
+        assertThatThrownBy(() -> batchUploadService.submitFiles(pdfs("a.pdf"), "user", false))
+                .isInstanceOf(UploadRejectedException.class);
+        assertThat(batchStore.batches).isEmpty();
+        assertThat(batchUploadService.submitFiles(pdfs("a.pdf"), "someone-else", false).isFinished()).isTrue();
+
+        running.close();
+        assertThat(batchUploadService.submitFiles(pdfs("a.pdf"), "user", false).isFinished()).isTrue();
+    }
+
+    @Test
+    void ocrHeavyFilesWaitWhileOcrIsSaturatedAndHoldATicketWhileTheyRun() throws IOException {
+        admissionService.estimate = new AdmissionService.Estimate(10, 10, false);
+        admissionService.saturatedChecks = 3;
+
+        BatchUpload batch = batchUploadService.submitFiles(pdfs("a.pdf", "b.pdf"), "user", false);
+
+        assertThat(batch.getFiles()).extracting(BatchFileResult::getStatus)
+                .containsExactly(JobStatus.COMPLETED, JobStatus.COMPLETED);
+        // a.pdf waited out the saturation, b.pdf found capacity free
+        assertThat(admissionService.deferrals).isEqualTo(1);
+        assertThat(admissionService.saturatedChecks).isZero();
+        assertThat(documentService.heldTickets).containsExactly(1, 1);
+        // every ticket was given back, so the user is under quota again
+        admissionService.checkQuota("user");
+    }
+
+    @Test
+    void fastLaneFilesNeverWait() throws IOException {
+        admissionService.saturatedChecks = 3;
+
+        batchUploadService.submitFiles(pdfs("a.pdf"), "user", false);
+
+        assertThat(admissionService.deferrals).isZero();
+        assertThat(admissionService.saturatedChecks).isEqualTo(3);
+    }
+
+    private static List<MultipartFile> pdfs(String... names) {
+        return Stream.of(names)
+                .<MultipartFile>map(name -> new MockMultipartFile("files", name, "application/pdf", new byte[]{'%', 'P', 'D', 'F'}))
+                .toList();
+    }
+
+    // runs the batch workers on the calling thread, so a submit returns with the batch finished
+    private static class InlineExecutor extends ThreadPoolTaskExecutor {
+        @Override
+        public void execute(Runnable task) {
+            task.run();
+        }
+    }
+
+    private static class FakeBatchStore extends BatchStore {
+        private final Map<String, BatchUpload> batches = new HashMap<>();
+        private final List<Integer> fileUpdates = new ArrayList<>();
+        private String finishedBy;
+
+        FakeBatchStore() {
+            super(null);
+        }
+
+        @Override
+        public void insert(BatchUpload batch) {
+            batches.put(batch.getId(), batch);
+        }
+
+        @Override
+        public Optional<BatchUpload> find(String batchId) {
+            return Optional.ofNullable(batches.get(batchId));
+        }
+
+        @Override
+        public void fileUpdated(BatchUpload batch, int index) {
+            fileUpdates.add(index);
+        }
+
+        @Override
+        public void finished(BatchUpload batch, String owner) {
+            finishedBy = owner;
+        }
+    }
+
+    // the estimate is fixed by the test, and OCR reports saturated for the next saturatedChecks checks
+    private static class FakeAdmissionService extends AdmissionService {
+        private AdmissionService.Estimate estimate = new AdmissionService.Estimate(1, 0, true);
+        private int saturatedChecks;
+        private int deferrals;
+
+        FakeAdmissionService(OcrService ocrService, PipelineMetrics pipelineMetrics) {
+            super(ocrService, pipelineMetrics, true, 8, 50, 1, 400, 2.0, 2);
+        }
+
+        @Override
+        public Estimate estimate(PDDocument document) {
+            return estimate;
+        }
+
+        @Override
+        public boolean isSaturated() {
+            if (saturatedChecks == 0) {
+                return false;
+            }
+            saturatedChecks--;
+            return true;
+        }
+
+        @Override
+        public void deferred() {
+            deferrals++;
+        }
+
+        @SuppressWarnings("unchecked")
+        int inFlight(String userId) {
+            Map<String, Integer> inFlightByUser = (Map<String, Integer>) ReflectionTestUtils.getField(this, "inFlightByUser");
+            return inFlightByUser.getOrDefault(userId, 0);
+        }
+    }
+
+    // file names drive the outcome: "bad" fails processing, "unsaveable" fails its single save
+    private static class FakeDocumentService extends DocumentService {
+        private final List<Integer> insertedGroups = new ArrayList<>();
+        private final List<String> saved = new ArrayList<>();
+        private final List<String> discarded = new ArrayList<>();
+        private final List<Integer> heldTickets = new ArrayList<>();
+        private boolean failBulkInsert;
+        private FakeAdmissionService admissionService;
+
+        FakeDocumentService() {
+            super(null, null, null, null, null, null, null, null, null, null, null, null);
+        }
+
+        @Override
+        String processDocument(String originalFileName, InputStreamSource source, String userId, boolean summarize,
+                               ProcessingListener listener, Consumer<Document> writer, Consumer<PDDocument> admission)
+                throws IOException {
+            if (originalFileName.contains("bad")) {
+                throw new IllegalStateException("unreadable PDF");
+            }
+            try (PDDocument pdf = new PDDocument()) {
+                admission.accept(pdf);
+            }
+            heldTickets.add(admissionService.inFlight(userId));
+            Document doc = new Document(originalFileName, null);
+            doc.setId("doc-" + originalFileName);
+            doc.setUserId(userId);
+            writer.accept(doc);
+            return "processed " + originalFileName;
+        }
+
+        @Override
+        void stageForInsert(Document doc) {
+            doc.setExtractedTextId("text-" + doc.getOriginalFileName());
+        }
+
+        @Override
+        void insertAll(List<Document> docs) {
+            if (failBulkInsert) {
+                throw new IllegalStateException("bulk write failed");
+            }
+            insertedGroups.add(docs.size());
+        }
+
+        @Override
+        void saveStaged(Document doc) {
+            if (doc.getOriginalFileName().contains("unsaveable")) {
+                throw new IllegalStateException("write failed");
+            }
+            saved.add(doc.getId());
+        }
+
+        @Override
+        void discardStaged(Document doc) {
+            discarded.add(doc.getId());
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.ram.project.documentsummerizer.service;
+
+import com.ram.project.documentsummerizer.model.Document;
+import com.ram.project.documentsummerizer.model.DocumentJob;
+import com.ram.project.documentsummerizer.model.JobStage;
+import com.ram.project.documentsummerizer.model.JobStatus;
+import com.ram.project.documentsummerizer.model.StageStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DocumentJobServiceTest {
+
+    private final InMemoryMongo mongo = new InMemoryMongo();
+    private final FakeDocumentService documentService = new FakeDocumentService();
+    private final FakeUploadStore uploadStore = new FakeUploadStore();
+
+    @AfterEach
+    void closeMongo() {
+        mongo.close();
+    }
+
+    @Test
+    void aJobIsClaimedByOneNodeOnly() {
+        Node a = node("node-a");
+        Node b = node("node-b");
+        DocumentJob job = queue("doc-1");
+
+        a.dispatch();
+        b.dispatch();
+
+        assertThat(a.executor.tasks).hasSize(1);
+        assertThat(b.executor.tasks).isEmpty();
+        DocumentJob stored = stored(job);
+        assertThat(stored.getStatus()).isEqualTo(JobStatus.RUNNING);
+        assertThat(stored.getLeaseOwner()).isEqualTo("node-a");
+        assertThat(stored.getAttempts()).isEqualTo(1);
+    }
+
+    @Test
+    void aJobWhoseLeaseRanOutIsClaimedAgainAndKeepsItsDocumentId() {
+        Node a = node("node-a");
+        Node b = node("node-b");
+        DocumentJob job = queue("doc-1");
+
+        a.dispatch();
+        expireLease(job);
+        b.dispatch();
+        b.executor.runAll();
+
+        DocumentJob stored = stored(job);
+        assertThat(stored.getStatus()).isEqualTo(JobStatus.COMPLETED);
+        assertThat(stored.getAttempts()).isEqualTo(2);
+        assertThat(stored.getDocumentId()).isEqualTo("doc-1");
+        assertThat(documentService.runs).containsExactly("doc-1");
+        assertThat(uploadStore.deleted).containsExactly(job.getUploadFileId());
+        assertThat(documentService.releasedCheckpoints).containsExactly("doc-1");
+    }
+
+    @Test
+    void aWorkerThatLostItsLeaseSavesNothing() {
+        Node a = node("node-a");
+        Node b = node("node-b");
+        DocumentJob job = queue("doc-1");
+        // node-b takes the job over while node-a is still in the middle of the pipeline
+        documentService.beforeSave = () -> {
+            expireLease(job);
+            b.dispatch();
+        };
+
+        a.dispatch();
+        a.executor.runAll();
+        assertThat(documentService.saved).isEmpty();
+        assertThat(stored(job).getLeaseOwner()).isEqualTo("node-b");
+
+        b.executor.runAll();
+        assertThat(documentService.runs).containsExactly("doc-1", "doc-1");
+        assertThat(documentService.saved).containsOnlyKeys("doc-1");
+        assertThat(stored(job).getStatus()).isEqualTo(JobStatus.COMPLETED);
+    }
+
+    @Test
+    void aStaleRunIsFencedEvenWhenTheSameNodeClaimedTheJobAgain() {
+        Node a = node("node-a");
+        DocumentJob job = queue("doc-1");
+
+        a.dispatch();
+        expireLease(job);
+        a.dispatch();
+        assertThat(a.executor.tasks).hasSize(2);
+
+        // the first attempt wakes up after its lease was taken over, its writes no longer match
+        a.executor.tasks.get(0).run();
+        assertThat(documentService.runs).isEmpty();
+        assertThat(stored(job).getAttempts()).isEqualTo(2);
+        assertThat(stored(job).getStatus()).isEqualTo(JobStatus.RUNNING);
+
+        a.executor.tasks.get(1).run();
+        assertThat(documentService.saved).containsOnlyKeys("doc-1");
+        assertThat(stored(job).getStatus()).isEqualTo(JobStatus.COMPLETED);
+    }
+
+    @Test
+    void aDocumentSavedByAnEarlierAttemptCompletesTheJobWithoutRunningItAgain() {
+        Node a = node("node-a");
+        DocumentJob job = queue("doc-1");
+        documentService.saved.put("doc-1", new Document("a.pdf", null));
+
+        a.dispatch();
+        a.executor.runAll();
+
+        assertThat(documentService.runs).isEmpty();
+        assertThat(stored(job).getStatus()).isEqualTo(JobStatus.COMPLETED);
+        assertThat(stored(job).getDocumentId()).isEqualTo("doc-1");
+    }
+
+    @Test
+    void failedAttemptsAreRetriedUntilMaxAttemptsThenTheJobFails() {
+        Node a = node("node-a");
+        ReflectionTestUtils.setField(a.service, "maxAttempts", 2);
+        documentService.failing = true;
+        DocumentJob job = queue("doc-1");
+
+        a.dispatch();
+        a.executor.runAll();
+        assertThat(stored(job).getStatus()).isEqualTo(JobStatus.QUEUED);
+        assertThat(stored(job).getError()).isEqualTo("OCR engine crashed");
+        // the next attempt resumes from them
+        assertThat(uploadStore.deleted).isEmpty();
+        assertThat(documentService.releasedCheckpoints).isEmpty();
+
+        a.dispatch();
+        a.executor.runAll();
+        DocumentJob stored = stored(job);
+        assertThat(stored.getStatus()).isEqualTo(JobStatus.FAILED);
+        assertThat(stored.getAttempts()).isEqualTo(2);
+        assertThat(documentService.runs).containsExactly("doc-1", "doc-1");
+        assertThat(uploadStore.deleted).containsExactly(job.getUploadFileId());
+        assertThat(documentService.releasedCheckpoints).containsExactly("doc-1");
+
+        a.dispatch();
+        assertThat(a.executor.tasks).isEmpty();
+    }
+
+    @Test
+    void aJobThatLostItsLeaseOnTheLastAttemptIsFailed() {
+        Node a = node("node-a");
+        ReflectionTestUtils.setField(a.service, "maxAttempts", 1);
+        Node b = node("node-b");
+        ReflectionTestUtils.setField(b.service, "maxAttempts", 1);
+        DocumentJob job = queue("doc-1");
+
+        a.dispatch();
+        expireLease(job);
+        b.dispatch();
+
+        assertThat(b.executor.tasks).isEmpty();
+        assertThat(stored(job).getStatus()).isEqualTo(JobStatus.FAILED);
+        assertThat(stored(job).getError()).isEqualTo("Processing was interrupted on every attempt.");
+        assertThat(uploadStore.deleted).containsExactly(job.getUploadFileId());
+        assertThat(documentService.releasedCheckpoints).containsExactly("doc-1");
+    }
+
+    private DocumentJob queue(String documentId) {
+        DocumentJob job = new DocumentJob("job-" + documentId, "user", "a.pdf", "upload-" + documentId, true,
+                documentId, 1, 0, true);
+        mongo.template().insert(job);
+        return job;
+    }
+
+    // what a node that stopped heartbeating leaves behind
+    private void expireLease(DocumentJob job) {
+        mongo.template().updateFirst(Query.query(Criteria.where("_id").is(job.getId())),
+                new Update().set("leaseExpiresAt", Instant.now().minusSeconds(1)), DocumentJob.class);
+    }
+
+    private DocumentJob stored(DocumentJob job) {
+        return mongo.template().findById(job.getId(), DocumentJob.class);
+    }
+
+    private Node node(String nodeId) {
+        HeldExecutor executor = new HeldExecutor();
+        AdmissionService admission = new AdmissionService(null, new PipelineMetrics(new SimpleMeterRegistry()),
+                false, 8, 50, 2, 400, 0.9, 2);
+        DocumentJobService service = new DocumentJobService(documentService, executor, mongo.template(), uploadStore,
+                admission, new PipelineMetrics(new SimpleMeterRegistry()), new NodeIdentity(nodeId));
+        ReflectionTestUtils.setField(service, "retentionMinutes", 60L);
+        ReflectionTestUtils.setField(service, "maxQueued", 500L);
+        ReflectionTestUtils.setField(service, "perUserMaxQueued", 20L);
+        ReflectionTestUtils.setField(service, "lease", Duration.ofSeconds(60));
+        ReflectionTestUtils.setField(service, "maxAttempts", 3);
+        ReflectionTestUtils.setField(service, "retryBackoff", Duration.ZERO);
+        ReflectionTestUtils.setField(service, "slots", new Semaphore(4));
+        return new Node(service, executor);
+    }
+
+    // one node's worker; dispatch is what its poll timer runs
+    private record Node(DocumentJobService service, HeldExecutor executor) {
+        void dispatch() {
+            ReflectionTestUtils.invokeMethod(service, "dispatch");
+        }
+    }
+
+    // keeps the claimed jobs until the test runs them, so it decides how attempts interleave
+    private static class HeldExecutor extends ThreadPoolTaskExecutor {
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        void runAll() {
+            List<Runnable> held = new ArrayList<>(tasks);
+            tasks.clear();
+            held.forEach(Runnable::run);
+        }
+    }
+
+    private static class FakeUploadStore extends UploadStore {
+        private final List<String> deleted = new ArrayList<>();
+
+        FakeUploadStore() {
+            super(null);
+        }
+
+        @Override
+        public Path download(String uploadId) throws IOException {
+            return Files.createTempFile("job-test-", ".pdf");
+        }
+
+        @Override
+        public void delete(String uploadId) {
+            deleted.add(uploadId);
+        }
+    }
+
+    // walks the listener through the stages like the pipeline does, saving into a map keyed by document id
+    private static class FakeDocumentService extends DocumentService {
+        private final Map<String, Document> saved = new HashMap<>();
+        private final List<String> runs = new ArrayList<>();
+        private final List<String> releasedCheckpoints = new ArrayList<>();
+        private boolean failing;
+        private Runnable beforeSave;
+
+        FakeDocumentService() {
+            super(null, null, null, null, null, null, null, null, null, null, null, null);
+        }
+
+        @Override
+        public String processDocument(String documentId, String originalFileName, InputStreamSource source,
+                                      String userId, boolean summarize, ProcessingListener listener) {
+            runs.add(documentId);
+            listener.stageStarted(JobStage.EXTRACTION);
+            if (failing) {
+                throw new IllegalStateException("OCR engine crashed");
+            }
+            listener.stageFinished(JobStage.EXTRACTION, StageStatus.DONE);
+            if (beforeSave != null) {
+                Runnable hook = beforeSave;
+                beforeSave = null;
+                hook.run();
+            }
+            listener.stageStarted(JobStage.SAVE);
+            Document doc = new Document(originalFileName, "text");
+            doc.setId(documentId);
+            doc.setUserId(userId);
+            saved.put(documentId, doc);
+            listener.stageFinished(JobStage.SAVE, StageStatus.DONE);
+            listener.documentSaved(doc);
+            return "processed " + originalFileName;
+        }
+
+        @Override
+        public Optional<Document> getDocumentById(String id) {
+            return Optional.ofNullable(saved.get(id));
+        }
+
+        @Override
+        public void releaseCheckpoints(String documentId) {
+            releasedCheckpoints.add(documentId);
+        }
+    }
+}
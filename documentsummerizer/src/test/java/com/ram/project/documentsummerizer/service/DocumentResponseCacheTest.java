@@ -0,0 +1,57 @@
+package com.ram.project.documentsummerizer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.ram.project.documentsummerizer.model.Document;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DocumentResponseCacheTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+    private final DocumentResponseCache cache = new DocumentResponseCache(objectMapper, true, 1, Duration.ofMinutes(10));
+
+    @Test
+    void putFromAReadOlderThanTheLastInvalidateIsNotKept() throws IOException {
+        long staleRead = cache.version();
+        cache.invalidate("doc-1");
+        DocumentResponseCache.CachedResponse stale = cache.put(document("old summary"), false, staleRead);
+
+        // the request that read it still gets its response, later ones do not
+        assertThat(new String(stale.json(), StandardCharsets.UTF_8)).contains("old summary");
+        assertThat(cache.get("doc-1", false)).isEmpty();
+
+        cache.put(document("new summary"), false, cache.version());
+        assertThat(cache.get("doc-1", false)).hasValueSatisfying(response ->
+                assertThat(new String(response.json(), StandardCharsets.UTF_8)).contains("new summary"));
+    }
+
+    @Test
+    void responseLeavesOutStorageReferencesAndTheOwner() throws IOException {
+        Document doc = document("summary");
+        doc.setExtractedText("the text");
+
+        String withText = new String(cache.put(doc, true, cache.version()).json(), StandardCharsets.UTF_8);
+        String withoutText = new String(cache.put(doc, false, cache.version()).json(), StandardCharsets.UTF_8);
+
+        assertThat(objectMapper.readTree(withText).path("extractedText").asText()).isEqualTo("the text");
+        assertThat(objectMapper.readTree(withoutText).path("extractedText").isNull()).isTrue();
+        assertThat(withText).doesNotContain("text-blob", "pdf-blob", "user-1", "extractedTextId", "sourceFileId", "userId");
+        assertThat(cache.get("doc-1", true)).hasValueSatisfying(response -> assertThat(response.userId()).isEqualTo("user-1"));
+    }
+
+    private static Document document(String summary) {
+        Document doc = new Document("report.pdf", null);
+        doc.setId("doc-1");
+        doc.setUserId("user-1");
+        doc.setSummary(summary);
+        doc.setExtractedTextId("text-blob");
+        doc.setSourceFileId("pdf-blob");
+        return doc;
+    }
+}
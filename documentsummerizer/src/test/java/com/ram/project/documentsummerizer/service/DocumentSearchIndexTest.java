@@ -0,0 +1,119 @@
+package com.ram.project.documentsummerizer.service;
+
+import com.ram.project.documentsummerizer.model.Document;
+import com.ram.project.documentsummerizer.model.DocumentSearchHit;
+import com.ram.project.documentsummerizer.model.DocumentSearchResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two nodes, each with its own index directory, sharing one in-process Mongo.
+class DocumentSearchIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final InMemoryMongo mongo = new InMemoryMongo();
+    private final DocumentTextStore documentTextStore = new DocumentTextStore(mongo.gridFs("document_texts"));
+    private final List<DocumentSearchIndex> nodes = new ArrayList<>();
+
+    @AfterEach
+    void close() throws IOException {
+        for (DocumentSearchIndex node : nodes) {
+            node.close();
+        }
+        mongo.close();
+    }
+
+    @Test
+    void searchOnlyReturnsTheCallersDocuments() throws IOException {
+        DocumentSearchIndex index = node("node-a");
+        index.index(document("alice-doc", "alice", "lease.pdf"), "The monthly invoice is due on the first.");
+        index.index(document("bob-doc", "bob", "lease.pdf"), "The monthly invoice is due on the fifth.");
+
+        DocumentSearchResult alice = index.search("alice", "invoice", 10);
+        DocumentSearchResult bob = index.search("bob", "invoice", 10);
+
+        assertThat(alice.totalHits()).isEqualTo(1);
+        assertThat(alice.hits()).extracting(DocumentSearchHit::id).containsExactly("alice-doc");
+        assertThat(bob.hits()).extracting(DocumentSearchHit::id).containsExactly("bob-doc");
+        assertThat(index.search("carol", "invoice", 10).hits()).isEmpty();
+    }
+
+    @Test
+    void aDocumentDeletedOnOneNodeIsDroppedByTheOtherNodesSync() throws Exception {
+        DocumentSearchIndex a = node("node-a");
+        DocumentSearchIndex b = node("node-b");
+        Document doc = saved(document("doc-1", "alice", "lease.pdf"), "The deposit is returned within thirty days.");
+        a.index(doc, "The deposit is returned within thirty days.");
+        sync(b);
+        assertThat(b.search("alice", "deposit", 10).hits()).extracting(DocumentSearchHit::id).containsExactly("doc-1");
+
+        // what DocumentService does on DELETE: the document goes, the index leaves a tombstone
+        mongo.template().remove(doc);
+        a.remove("doc-1");
+        assertThat(a.search("alice", "deposit", 10).hits()).isEmpty();
+        assertThat(b.search("alice", "deposit", 10).hits()).hasSize(1);
+
+        sync(b);
+        assertThat(b.search("alice", "deposit", 10).hits()).isEmpty();
+        // a later save under the same id wins over the older tombstone, on this poll and the next
+        Thread.sleep(5);
+        saved(document("doc-1", "alice", "lease.pdf"), "The deposit is kept for damages.");
+        sync(b);
+        sync(b);
+        assertThat(b.search("alice", "damages", 10).hits()).extracting(DocumentSearchHit::id).containsExactly("doc-1");
+    }
+
+    @Test
+    void matchesAreHighlightedPerField() throws IOException {
+        DocumentSearchIndex index = node("node-a");
+        Document doc = document("doc-1", "alice", "payment-schedule.pdf");
+        doc.setSummary("A lease with a fixed payment schedule.");
+        index.index(doc, "Clause 4 covers late payment fees. Clause 9 covers pets.");
+
+        DocumentSearchHit hit = index.search("alice", "payment", 10).hits().get(0);
+
+        assertThat(hit.highlights()).hasSize(3).allMatch(snippet -> snippet.contains("<mark>payment</mark>"));
+        assertThat(hit.highlights()).noneMatch(snippet -> snippet.contains("pets"));
+        assertThat(index.search("alice", "pets", 10).hits().get(0).highlights())
+                .containsExactly("Clause 9 covers <mark>pets</mark>.");
+    }
+
+    private DocumentSearchIndex node(String name) throws IOException {
+        DocumentSearchIndex index = new DocumentSearchIndex(tempDir.resolve(name), mongo.template(), documentTextStore);
+        ReflectionTestUtils.setField(index, "rebuildOnEmpty", true);
+        ReflectionTestUtils.setField(index, "syncOverlap", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(index, "tombstoneTtl", Duration.ofDays(7));
+        nodes.add(index);
+        return index;
+    }
+
+    // one run of the node's poll timer
+    private static void sync(DocumentSearchIndex index) {
+        ReflectionTestUtils.invokeMethod(index, "sync");
+    }
+
+    private static Document document(String id, String userId, String fileName) {
+        Document doc = new Document(fileName, null);
+        doc.setId(id);
+        doc.setUserId(userId);
+        return doc;
+    }
+
+    private Document saved(Document doc, String text) {
+        doc.setExtractedTextId(documentTextStore.store(text, doc.getOriginalFileName()));
+        doc.setUpdatedAt(Instant.now());
+        return mongo.template().save(doc);
+    }
+}
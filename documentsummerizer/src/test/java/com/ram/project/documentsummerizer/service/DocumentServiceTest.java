@@ -0,0 +1,244 @@
+package com.ram.project.documentsummerizer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ram.project.documentsummerizer.model.Document;
+import com.ram.project.documentsummerizer.model.StageStatus;
+import com.ram.project.documentsummerizer.repository.DocumentRepository;
+import com.ram.project.documentsummerizer.repository.DocumentRepositoryCustom;
+import com.ram.project.documentsummerizer.repository.PageCheckpointRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.rendering.ImageType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The pipeline end to end on an in-process Mongo, with OCR faked: pages 0 and 2 of the test PDF have native
+// text, pages 1 and 3 are blank and go to OCR.
+class DocumentServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final InMemoryMongo mongo = new InMemoryMongo();
+    private final PipelineMetrics pipelineMetrics = new PipelineMetrics(new SimpleMeterRegistry());
+    private final MongoRepositoryFactory repositories = new MongoRepositoryFactory(mongo.template());
+    private final DocumentRepository documentRepository = repositories.getRepository(DocumentRepository.class,
+            (DocumentRepositoryCustom) (userId, beforeCreatedAt, beforeId, limit) -> List.of());
+    private final PageCheckpointStore pageCheckpointStore =
+            new PageCheckpointStore(repositories.getRepository(PageCheckpointRepository.class));
+    private final DocumentTextStore documentTextStore = new DocumentTextStore(mongo.gridFs("document_texts"));
+    private final UploadStore uploadStore = new UploadStore(mongo.gridFs("uploads"));
+    private final FakeOcrService ocrService = new FakeOcrService(pipelineMetrics);
+    private DocumentSearchIndex documentSearchIndex;
+    private DocumentService documentService;
+
+    private DocumentService documentService() throws IOException {
+        return documentService(new AdmissionService(ocrService, pipelineMetrics, false, 8, 50, 2, 400, 0.9, 2));
+    }
+
+    private DocumentService documentService(AdmissionService admissionService) throws IOException {
+        StubSummarizationProvider summarizer = new StubSummarizationProvider(Duration.ZERO);
+        documentSearchIndex = new DocumentSearchIndex(tempDir.resolve("index"), mongo.template(), documentTextStore);
+        documentService = new DocumentService(documentRepository, summarizer, ocrService,
+                new ExtractionCache(null, false, 0, Duration.ofHours(1), 15),
+                new ChunkedSummarizer(summarizer, false, 4000, 1), documentTextStore, pipelineMetrics,
+                documentSearchIndex, pageCheckpointStore, uploadStore,
+                admissionService, new DocumentResponseCache(new ObjectMapper(), false, 1, Duration.ofMinutes(1)));
+        ReflectionTestUtils.setField(documentService, "pdfMaxMainMemoryMb", 16L);
+        ReflectionTestUtils.setField(documentService, "reprocessLockTimeout", Duration.ofHours(1));
+        return documentService;
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        if (documentSearchIndex != null) {
+            documentSearchIndex.close();
+        }
+        ocrService.shutdown();
+        mongo.close();
+    }
+
+    @Test
+    void reprocessOcrsOnlyThePagesWithoutACheckpoint() throws IOException {
+        DocumentService service = documentService();
+        Document doc = failedScan("doc-1");
+
+        service.reprocessDocument(doc);
+
+        assertThat(ocrService.requested).containsExactly(3);
+        Document saved = documentRepository.findById("doc-1").orElseThrow();
+        assertThat(saved.getOcrStatus()).isEqualTo(StageStatus.DONE);
+        assertThat(saved.getSummaryStatus()).isEqualTo(StageStatus.DONE);
+        assertThat(saved.getSourceFileId()).isNull();
+        assertThat(service.loadExtractedText(saved)).contains(scannedText(1), scannedText(3), nativeText(2));
+        assertThat(pageCheckpointStore.load("doc-1")).isEmpty();
+    }
+
+    @Test
+    void aSecondReprocessOfTheSameDocumentIsTurnedAwayUntilTheFirstEnds() throws IOException {
+        DocumentService service = documentService();
+        Document doc = failedScan("doc-1");
+        // another node is in the middle of reprocessing it
+        Instant now = Instant.now();
+        assertThat(documentRepository.lockForReprocess("doc-1", now, now.plusSeconds(60))).isEqualTo(1);
+
+        assertThatThrownBy(() -> service.reprocessDocument(doc))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("already being reprocessed");
+        assertThat(ocrService.requested).isEmpty();
+
+        documentRepository.unlockReprocess("doc-1");
+        service.reprocessDocument(doc);
+        assertThat(ocrService.requested).containsExactly(3);
+        assertThat(documentRepository.findById("doc-1").orElseThrow().getReprocessingUntil()).isNull();
+    }
+
+    @Test
+    void aReprocessLockLeftByADeadNodeRunsOut() throws IOException {
+        DocumentService service = documentService();
+        Document doc = failedScan("doc-1");
+        Instant past = Instant.now().minusSeconds(120);
+        documentRepository.lockForReprocess("doc-1", past, past.plusSeconds(60));
+
+        service.reprocessDocument(doc);
+
+        assertThat(documentRepository.findById("doc-1").orElseThrow().getOcrStatus()).isEqualTo(StageStatus.DONE);
+    }
+
+    @Test
+    void aReprocessGoesThroughAdmissionAndLeavesTheDocumentUntouchedWhenRejected() throws IOException {
+        AdmissionService admission = new AdmissionService(ocrService, pipelineMetrics, true, 8, 50, 1, 400, 2.0, 2);
+        DocumentService service = documentService(admission);
+        Document doc = failedScan("doc-1");
+        AdmissionService.Ticket running = admission.admit("user", new AdmissionService.Estimate(10, 10, false));
+
+        assertThatThrownBy(() -> service.reprocessDocument(doc)).isInstanceOf(UploadRejectedException.class);
+        assertThat(ocrService.requested).isEmpty();
+        Document untouched = documentRepository.findById("doc-1").orElseThrow();
+        assertThat(untouched.getOcrStatus()).isEqualTo(StageStatus.FAILED);
+        assertThat(untouched.getReprocessingUntil()).isNull();
+        assertThat(pageCheckpointStore.load("doc-1")).containsOnlyKeys(1);
+
+        running.close();
+        service.reprocessDocument(doc);
+        assertThat(ocrService.requested).containsExactly(3);
+    }
+
+    @Test
+    void aRetryUnderTheSameDocumentIdResumesFromItsCheckpoints() throws Exception {
+        DocumentService service = documentService();
+        pageCheckpointStore.save("doc-2", 1, scannedText(1));
+
+        service.processDocument("doc-2", "scan.pdf", new FileSystemResource(pdf()), "user", true, ProcessingListener.NONE);
+
+        assertThat(ocrService.requested).containsExactly(3);
+        Document saved = documentRepository.findById("doc-2").orElseThrow();
+        assertThat(service.loadExtractedText(saved)).contains(scannedText(1), scannedText(3));
+        assertThat(pageCheckpointStore.load("doc-2")).isEmpty();
+    }
+
+    @Test
+    void checkpointsOutliveTheirJobOnlyForADocumentWhoseOcrFailed() throws IOException {
+        DocumentService service = documentService();
+        Document failed = new Document("scan.pdf", null);
+        failed.setId("doc-failed");
+        failed.setOcrStatus(StageStatus.FAILED);
+        documentRepository.save(failed);
+        pageCheckpointStore.save("doc-failed", 1, scannedText(1));
+        pageCheckpointStore.save("doc-never-saved", 1, scannedText(1));
+
+        service.releaseCheckpoints("doc-failed");
+        service.releaseCheckpoints("doc-never-saved");
+
+        assertThat(pageCheckpointStore.load("doc-failed")).containsOnlyKeys(1);
+        assertThat(pageCheckpointStore.load("doc-never-saved")).isEmpty();
+    }
+
+    // OCR failed after page 1 was checkpointed
+    private Document failedScan(String id) throws IOException {
+        Document doc = new Document("scan.pdf", null);
+        doc.setId(id);
+        doc.setUserId("user");
+        doc.setNativeStatus(StageStatus.DONE);
+        doc.setOcrStatus(StageStatus.FAILED);
+        doc.setSummaryStatus(StageStatus.PENDING);
+        doc.setSourceFileId(uploadStore.store(new FileSystemResource(pdf()), "scan.pdf"));
+        doc.setExtractedTextId(documentTextStore.store("partial text", "scan.pdf"));
+        documentRepository.save(doc);
+        pageCheckpointStore.save(id, 1, scannedText(1));
+        return doc;
+    }
+
+    private Path pdf() throws IOException {
+        Path file = tempDir.resolve("scan.pdf");
+        try (PDDocument document = new PDDocument()) {
+            for (int page = 0; page < 4; page++) {
+                PDPage pdfPage = new PDPage();
+                document.addPage(pdfPage);
+                if (page % 2 == 1) {
+                    continue;
+                }
+                try (PDPageContentStream content = new PDPageContentStream(document, pdfPage)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 11);
+                    content.newLineAtOffset(72, 700);
+                    for (int line = 0; line < 3; line++) {
+                        content.showText(nativeText(page));
+                        content.newLineAtOffset(0, -16);
+                    }
+                    content.endText();
+                }
+            }
+            document.save(file.toFile());
+        }
+        return file;
+    }
+
+    private static String nativeText(int page) {
+        return "Page " + page + " of the contract sets out the payment terms and the notice period for both parties.";
+    }
+
+    private static String scannedText(int page) {
+        return "Scanned page " + page + " records the signatures of the witnesses and the date the agreement took effect.";
+    }
+
+    private static class FakeOcrService extends OcrService {
+        private final List<Integer> requested = new ArrayList<>();
+
+        FakeOcrService(PipelineMetrics pipelineMetrics) {
+            super("", "eng", 300, ImageType.GRAY, 1, 0, pipelineMetrics, null);
+        }
+
+        @Override
+        public Map<Integer, String> ocrPages(PDDocument document, List<Integer> pageIndices, ProcessingListener listener,
+                                             BiConsumer<Integer, String> pageDone) {
+            requested.addAll(pageIndices);
+            Map<Integer, String> texts = new LinkedHashMap<>();
+            for (int page : pageIndices) {
+                texts.put(page, scannedText(page));
+                pageDone.accept(page, scannedText(page));
+            }
+            return texts;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.ram.project.documentsummerizer.service;
+
+import com.ram.project.documentsummerizer.model.ExtractionCacheEntry;
+import com.ram.project.documentsummerizer.repository.ExtractionCacheRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExtractionCacheTest {
+
+    private final InMemoryMongo mongo = new InMemoryMongo();
+    private final ExtractionCacheRepository repository =
+            new MongoRepositoryFactory(mongo.template()).getRepository(ExtractionCacheRepository.class);
+
+    @AfterEach
+    void closeMongo() {
+        mongo.close();
+    }
+
+    @Test
+    void storedTextIsCompressedAndReadBackOnAnotherNode() {
+        String text = "The tenant pays the rent on the first day of each month. ".repeat(20_000);
+        new ExtractionCache(repository, true, 50_000_000, Duration.ofHours(1), 15).put("hash", text, "summary");
+
+        ExtractionCacheEntry stored = repository.findById("hash").orElseThrow();
+        assertThat(stored.getExtractedText()).isNull();
+        assertThat(stored.getCompressedText()).hasSizeLessThan(text.length() / 100);
+
+        // a node with a cold memory tier
+        ExtractionCacheEntry entry = new ExtractionCache(repository, true, 50_000_000, Duration.ofHours(1), 15)
+                .get("hash").orElseThrow();
+        assertThat(entry.getExtractedText()).isEqualTo(text);
+        assertThat(entry.getSummary()).isEqualTo("summary");
+    }
+
+    @Test
+    void anEntryTooBigForOneMongoDocumentStaysInMemoryOnly() {
+        ExtractionCache cache = new ExtractionCache(repository, true, 50_000_000, Duration.ofHours(1), 0);
+
+        cache.put("hash", "some extracted text", "summary");
+
+        assertThat(repository.findById("hash")).isEmpty();
+        assertThat(cache.get("hash")).map(ExtractionCacheEntry::getExtractedText).contains("some extracted text");
+    }
+
+    @Test
+    void entriesStoredBeforeCompressionAreStillRead() {
+        repository.save(new ExtractionCacheEntry("hash", "legacy text", "summary"));
+
+        ExtractionCacheEntry entry = new ExtractionCache(repository, true, 50_000_000, Duration.ofHours(1), 15)
+                .get("hash").orElseThrow();
+
+        assertThat(entry.getExtractedText()).isEqualTo("legacy text");
+    }
+}
@@ -0,0 +1,192 @@
+package com.ram.project.documentsummerizer.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GroqServiceTest {
+
+    private static final String COMPLETION = "{\"choices\":[{\"message\":{\"role\":\"assistant\",\"content\":\"A short summary.\"}}]}";
+    private static final String STREAM = """
+            data: {"choices":[{"delta":{"role":"assistant"}}]}
+
+            data: {"choices":[{"delta":{"content":"A short"}}]}
+
+            data: {"choices":[{"delta":{"content":" summary."}}]}
+
+            data: {"choices":[{"delta":{},"finish_reason":"stop"}]}
+
+            data: [DONE]
+
+            """;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HttpServer server;
+    private OpenAiCompatibleProvider groqService;
+    private final Deque<Integer> statuses = new ArrayDeque<>();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final List<Long> callTimes = new CopyOnWriteArrayList<>();
+    private volatile long responseDelayMillis;
+
+    @BeforeEach
+    void startStubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/chat/completions", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stopStubServer() {
+        groqService.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void returnsMessageContent() {
+        groqService = newService(Duration.ofSeconds(5), 1);
+
+        assertThat(groqService.summarize("some text").block()).isEqualTo("A short summary.");
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void retriesRateLimitedAndServerErrors() {
+        statuses.add(429);
+        statuses.add(503);
+        groqService = newService(Duration.ofSeconds(5), 3);
+
+        assertThat(groqService.summarize("some text").block()).isEqualTo("A short summary.");
+        assertThat(calls).hasValue(3);
+        assertThat(meterRegistry.get("summarization.requests").tag("provider", "groq").tag("outcome", "success")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void retriesWaitForTheRateLimiter() {
+        statuses.add(429);
+        statuses.add(429);
+        // one request per 300ms window, the retry backoff alone would resend within 50ms
+        groqService = newService(Duration.ofSeconds(5), 3, 1, Duration.ofMillis(300));
+
+        assertThat(groqService.summarize("some text").block()).isEqualTo("A short summary.");
+        assertThat(callTimes).hasSize(3);
+        for (int i = 1; i < callTimes.size(); i++) {
+            assertThat(callTimes.get(i) - callTimes.get(i - 1)).isGreaterThanOrEqualTo(Duration.ofMillis(250).toNanos());
+        }
+    }
+
+    @Test
+    void streamingRetriesWaitForTheRateLimiter() {
+        statuses.add(429);
+        groqService = newService(Duration.ofSeconds(5), 3, 1, Duration.ofMillis(300));
+
+        assertThat(groqService.streamSummary("some text").collectList().block())
+                .containsExactly("A short", " summary.");
+        assertThat(callTimes).hasSize(2);
+        assertThat(callTimes.get(1) - callTimes.get(0)).isGreaterThanOrEqualTo(Duration.ofMillis(250).toNanos());
+    }
+
+    @Test
+    void givesUpAfterMaxAttemptsCalls() {
+        statuses.add(503);
+        statuses.add(503);
+        statuses.add(503);
+        groqService = newService(Duration.ofSeconds(5), 3);
+
+        assertThatThrownBy(() -> groqService.summarize("some text").block())
+                .isInstanceOf(SummarizationException.class);
+        assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        statuses.add(400);
+        groqService = newService(Duration.ofSeconds(5), 3);
+
+        assertThatThrownBy(() -> groqService.summarize("some text").block())
+                .isInstanceOf(SummarizationException.class);
+        assertThat(calls).hasValue(1);
+        assertThat(meterRegistry.get("summarization.requests").tag("provider", "groq").tag("outcome", "client_error")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void streamsContentDeltas() {
+        groqService = newService(Duration.ofSeconds(5), 1);
+
+        assertThat(groqService.streamSummary("some text").collectList().block())
+                .containsExactly("A short", " summary.");
+    }
+
+    @Test
+    void failsWhenResponseIsSlowerThanReadTimeout() {
+        responseDelayMillis = 1000;
+        groqService = newService(Duration.ofMillis(200), 1);
+
+        assertThatThrownBy(() -> groqService.summarize("some text").block())
+                .isInstanceOf(SummarizationException.class);
+    }
+
+    private GroqService newService(Duration readTimeout, int maxAttempts) {
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        return new GroqService(WebClient.builder(), new PipelineMetrics(meterRegistry), "test-key", baseUrl, "test-model",
+                Duration.ofSeconds(1), readTimeout, maxAttempts, Duration.ofMillis(10), Duration.ofMillis(50),
+                1000, 1_000_000, 4, Duration.ofSeconds(30));
+    }
+
+    // same wiring as GroqService, with a rate limit window short enough to measure
+    private OpenAiCompatibleProvider newService(Duration readTimeout, int maxAttempts, int requestsPerWindow,
+                                                Duration rateLimitWindow) {
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        return new OpenAiCompatibleProvider("groq", WebClient.builder(), new PipelineMetrics(meterRegistry), "test-key",
+                baseUrl, "test-model", Duration.ofSeconds(1), readTimeout, maxAttempts, Duration.ofMillis(10),
+                Duration.ofMillis(50), requestsPerWindow, 1_000_000, 4, Duration.ofSeconds(30), rateLimitWindow) {};
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        calls.incrementAndGet();
+        callTimes.add(System.nanoTime());
+        String request = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        if (responseDelayMillis > 0) {
+            try {
+                Thread.sleep(responseDelayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Integer status = statuses.poll();
+        if (status == null && request.contains("\"stream\":true")) {
+            respond(exchange, 200, "text/event-stream", STREAM);
+            return;
+        }
+        respond(exchange, status == null ? 200 : status, "application/json",
+                status == null ? COMPLETION : "{\"error\":{\"message\":\"stub\"}}");
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String content) throws IOException {
+        byte[] body = content.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+}
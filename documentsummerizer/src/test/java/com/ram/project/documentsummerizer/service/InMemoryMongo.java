@@ -0,0 +1,39 @@
+package com.ram.project.documentsummerizer.service;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.gridfs.GridFsTemplate;
+
+import java.net.InetSocketAddress;
+
+// In-process Mongo (mongo-java-server's memory backend) for the services whose behaviour lives in their queries:
+// leases, claims and change polling. Start one per test and close it afterwards.
+class InMemoryMongo implements AutoCloseable {
+
+    private final MongoServer server = new MongoServer(new MemoryBackend());
+    private final MongoClient client;
+    private final MongoTemplate mongoTemplate;
+
+    InMemoryMongo() {
+        InetSocketAddress address = server.bind();
+        client = MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort());
+        mongoTemplate = new MongoTemplate(client, "test");
+    }
+
+    MongoTemplate template() {
+        return mongoTemplate;
+    }
+
+    GridFsTemplate gridFs(String bucket) {
+        return new GridFsTemplate(mongoTemplate.getMongoDatabaseFactory(), mongoTemplate.getConverter(), bucket);
+    }
+
+    @Override
+    public void close() {
+        client.close();
+        server.shutdownNow();
+    }
+}
@@ -0,0 +1,39 @@
+package com.ram.project.documentsummerizer.service;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+// The regex-based checks DocumentService used before TextQualityAnalyzer, kept verbatim as the
+// reference for the regression test and the before/after benchmark.
+final class LegacyTextQuality {
+
+    private static final Pattern MEANINGFUL_TEXT_PATTERN = Pattern.compile("[a-zA-Z0-9]{3,}");
+
+    private LegacyTextQuality() {
+    }
+
+    static boolean isTextQualitySufficient(String text, int minLength) {
+        if (text == null || text.trim().isEmpty()) {
+            return false;
+        }
+        String cleaned = text.replaceAll("[^A-Za-z0-9\\s]", "").trim().replaceAll("\\s+", " ");
+        String[] words = cleaned.split(" ");
+        long meaningfulWords = words.length == 0 ? 0 :
+            Arrays.stream(words).filter(w -> w.length() >= 3 && MEANINGFUL_TEXT_PATTERN.matcher(w).matches()).count();
+        return cleaned.length() >= minLength && meaningfulWords >= 5;
+    }
+
+    static boolean isLikelyHandwrittenOrPoorQuality(String ocrText, String fileName) {
+        if (ocrText.length() < 200 && fileName.toLowerCase().contains("handwritten")) {
+            return true;
+        }
+        long alphanumericChars = ocrText.chars().filter(Character::isLetterOrDigit).count();
+        double density = (double) alphanumericChars / ocrText.length();
+        return ocrText.length() > 0 && density < 0.2;
+    }
+
+    // the cleaned string the old check measured, for comparing lengths directly
+    static String cleaned(String text) {
+        return text.replaceAll("[^A-Za-z0-9\\s]", "").trim().replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,160 @@
+package com.ram.project.documentsummerizer.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class OcrImagePreprocessorTest {
+
+    private static final int BLACK = 0xFF000000;
+    private static final int WHITE = 0xFFFFFFFF;
+
+    private final OcrImagePreprocessor preprocessor = new OcrImagePreprocessor(true, 0.001, true, 150, 40, true, 0.3);
+
+    @Test
+    void otsuSplitsABimodalHistogramBetweenItsPeaks() {
+        int[] spikes = new int[256];
+        spikes[30] = 100;
+        spikes[220] = 300;
+        // every threshold from 30 to 219 separates the spikes equally well, the first one wins
+        assertThat(OcrImagePreprocessor.otsu(spikes)).isEqualTo(30);
+
+        int[] spread = new int[256];
+        for (int i = 0; i < 256; i++) {
+            spread[i] = (int) (1000 * Math.exp(-Math.pow(i - 50, 2) / 2000) + 4000 * Math.exp(-Math.pow(i - 200, 2) / 2000));
+        }
+        assertThat(OcrImagePreprocessor.otsu(spread)).isBetween(110, 140);
+    }
+
+    @Test
+    void contentBoxTrimsScannerBordersAndMargins() {
+        BufferedImage page = blankImage(400, 400);
+        Graphics2D g = page.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, 400, 2);
+        g.fillRect(0, 398, 400, 2);
+        g.fillRect(0, 0, 2, 400);
+        g.fillRect(398, 0, 2, 400);
+        // three lines of glyphs; a solid bar would read as a border line itself
+        for (int y = 120; y <= 180; y += 30) {
+            for (int x = 100; x <= 292; x += 8) {
+                g.fillRect(x, y, 4, 11);
+            }
+        }
+        g.dispose();
+
+        assertThat(OcrImagePreprocessor.contentBox(ink(page), 400, 400)).containsExactly(100, 120, 295, 190);
+        assertThat(OcrImagePreprocessor.contentBox(ink(blankImage(50, 50)), 50, 50)).isNull();
+    }
+
+    @Test
+    void estimatesSkewSignAndMagnitudeOfRotatedLines() {
+        assertThat(OcrImagePreprocessor.estimateSkew(inkPoints(rotatedLines(2.0)))).isCloseTo(2.0, within(0.25));
+        assertThat(OcrImagePreprocessor.estimateSkew(inkPoints(rotatedLines(-3.0)))).isCloseTo(-3.0, within(0.25));
+        assertThat(OcrImagePreprocessor.estimateSkew(inkPoints(rotatedLines(0)))).isCloseTo(0.0, within(0.25));
+    }
+
+    @Test
+    void probeSkipsBlankPagesAndKeepsPagesWithText() throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            document.addPage(new PDPage());
+            PDPage text = new PDPage();
+            document.addPage(text);
+            try (PDPageContentStream content = new PDPageContentStream(document, text)) {
+                content.beginText();
+                content.setFont(PDType1Font.HELVETICA, 12);
+                content.newLineAtOffset(72, 700);
+                for (int i = 0; i < 20; i++) {
+                    content.showText("Quarterly revenue grew while costs stayed flat across all regions.");
+                    content.newLineAtOffset(0, -16);
+                }
+                content.endText();
+            }
+            PDFRenderer renderer = new PDFRenderer(document);
+
+            assertThat(preprocessor.probe(renderer, 0, 300).blank()).isTrue();
+            OcrImagePreprocessor.Probe probe = preprocessor.probe(renderer, 1, 300);
+            assertThat(probe.blank()).isFalse();
+            assertThat(probe.dpi()).isBetween(150, 300);
+        }
+    }
+
+    @Test
+    void cleanCropsToTheTextAndPacksInkIntoABinaryImage() {
+        // two lines of 4px "glyphs" 10px apart, so no row or column looks like a border
+        BufferedImage page = blankImage(200, 100);
+        Graphics2D g = page.createGraphics();
+        g.setColor(Color.BLACK);
+        for (int line : new int[]{40, 60}) {
+            for (int k = 0; k < 10; k++) {
+                g.fillRect(50 + 10 * k, line, 4, 8);
+            }
+        }
+        g.dispose();
+
+        // content box is (50,40)-(143,67), plus a 4px margin at 80 DPI
+        BufferedImage cleaned = preprocessor.clean(page, 0, 80);
+
+        assertThat(cleaned.getType()).isEqualTo(BufferedImage.TYPE_BYTE_BINARY);
+        assertThat(cleaned.getWidth()).isEqualTo(102);
+        assertThat(cleaned.getHeight()).isEqualTo(36);
+        assertThat(cleaned.getRGB(0, 0)).isEqualTo(WHITE);
+        assertThat(cleaned.getRGB(4, 4)).isEqualTo(BLACK);
+        assertThat(cleaned.getRGB(7, 11)).isEqualTo(BLACK);
+        assertThat(cleaned.getRGB(8, 4)).isEqualTo(WHITE);
+        // last glyph ends in the final, partly used byte of each row
+        assertThat(cleaned.getRGB(97, 31)).isEqualTo(BLACK);
+        assertThat(cleaned.getRGB(101, 31)).isEqualTo(WHITE);
+    }
+
+    private static BufferedImage blankImage(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+
+    // text-like lines rotated clockwise by degrees (y grows down, so positive means sloping down to the right)
+    private static BufferedImage rotatedLines(double degrees) {
+        BufferedImage page = blankImage(600, 600);
+        Graphics2D g = page.createGraphics();
+        g.setColor(Color.BLACK);
+        g.rotate(Math.toRadians(degrees), 300, 300);
+        for (int y = 150; y < 450; y += 30) {
+            for (int x = 150; x < 450; x += 12) {
+                g.fillRect(x, y, 5, 10);
+            }
+        }
+        g.dispose();
+        return page;
+    }
+
+    private static boolean[] ink(BufferedImage image) {
+        boolean[] ink = new boolean[image.getWidth() * image.getHeight()];
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                ink[y * image.getWidth() + x] = image.getRaster().getSample(x, y, 0) < 128;
+            }
+        }
+        return ink;
+    }
+
+    private static OcrImagePreprocessor.InkPoints inkPoints(BufferedImage image) {
+        boolean[] ink = ink(image);
+        int[] box = OcrImagePreprocessor.contentBox(ink, image.getWidth(), image.getHeight());
+        return OcrImagePreprocessor.InkPoints.of(ink, image.getWidth(), box);
+    }
+}
@@ -0,0 +1,114 @@
+package com.ram.project.documentsummerizer.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SummarizationRouterTest {
+
+    private final FakeProvider groq = new FakeProvider("groq");
+    private final FakeProvider local = new FakeProvider("local");
+
+    @Test
+    void routesShortInputsToTheSmallProvider() {
+        SummarizationRouter router = newRouter("local", "");
+
+        assertThat(router.summarize("short").block()).isEqualTo("local summary");
+        assertThat(router.summarize("x".repeat(101)).block()).isEqualTo("groq summary");
+    }
+
+    @Test
+    void failsOverAndStopsCallingAProviderOnceItsCircuitIsOpen() {
+        groq.failing = true;
+        SummarizationRouter router = newRouter("", "local");
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(router.summarize("x".repeat(200)).block()).isEqualTo("local summary");
+        }
+        // threshold is 2, so the third and later calls skip groq entirely
+        assertThat(groq.calls).hasValue(2);
+        assertThat(local.calls).hasValue(5);
+    }
+
+    @Test
+    void failsWhenEveryProviderFails() {
+        groq.failing = true;
+        local.failing = true;
+        SummarizationRouter router = newRouter("", "local");
+
+        assertThatThrownBy(() -> router.summarize("text").block()).isInstanceOf(SummarizationException.class);
+    }
+
+    @Test
+    void streamFailsOverOnlyBeforeTheFirstToken() {
+        groq.failing = true;
+        SummarizationRouter router = newRouter("", "local");
+        assertThat(router.streamSummary("text").collectList().block()).containsExactly("local", " summary");
+
+        groq.failing = false;
+        groq.failMidStream = true;
+        assertThatThrownBy(() -> router.streamSummary("text").collectList().block())
+                .isInstanceOf(SummarizationException.class);
+        assertThat(local.calls).hasValue(1);
+    }
+
+    private SummarizationRouter newRouter(String smallProvider, String failover) {
+        return new SummarizationRouter(List.of(groq, local), "groq", smallProvider, 100, failover,
+                2, Duration.ofMinutes(1));
+    }
+
+    private static class FakeProvider implements SummarizationProvider {
+        private final String name;
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile boolean failing;
+        private volatile boolean failMidStream;
+
+        FakeProvider(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public Mono<String> summarize(String text) {
+            return Mono.fromCallable(() -> {
+                calls.incrementAndGet();
+                if (failing) {
+                    throw new SummarizationException(name + " is down");
+                }
+                return name + " summary";
+            });
+        }
+
+        @Override
+        public Mono<String> summarizeChunk(String chunk, int index, int total) {
+            return summarize(chunk);
+        }
+
+        @Override
+        public Mono<String> mergeSummaries(List<String> partialSummaries) {
+            return summarize(String.join(" ", partialSummaries));
+        }
+
+        @Override
+        public Flux<String> streamSummary(String text) {
+            Flux<String> tokens = summarize(text).flatMapMany(summary -> Flux.just(name, " summary"));
+            return failMidStream ? tokens.take(1).concatWith(Flux.error(new SummarizationException(name + " dropped"))) : tokens;
+        }
+
+        @Override
+        public Flux<String> streamMergedSummary(List<String> partialSummaries) {
+            return streamSummary(String.join(" ", partialSummaries));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.ram.project.documentsummerizer.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextQualityAnalyzerTest {
+
+    private static final int[] MIN_LENGTHS = {0, 1, 5, 100, 500};
+    private static final String[] FILE_NAMES = {"scan.pdf", "Handwritten-note.pdf"};
+    // ASCII and Unicode letters, digits, every regex \s character plus whitespace \s does not cover
+    // (NBSP, ideographic space, U+001C), punctuation and symbols OCR tends to produce
+    private static final String ALPHABET = "abcxyzABCXYZ0189 \t\n\u000B\f\r\u00A0\u3000\u001C\u0001"
+            + ".,;:!?-_'\"|~()[]{}/\\@#%&*éüßñçøЖжπ中文٣";
+
+    @Test
+    void matchesLegacyChecksOnFixedCases() {
+        List<String> cases = List.of(
+                "", " ", "\n\t ", "\u0001\u0002", "\u00A0", "!!!", "a", "abc",
+                "one two three four five", "one two three four five six",
+                "abc def ghi jkl mno", "ab cd ef gh ij kl mn",
+                "abc -- def ghi jkl mno", "ab-cd ef.gh ij,kl mn'op qr",
+                "  leading and trailing whitespace around these words  ",
+                "word\u00A0joined\u00A0by\u00A0non\u00A0breaking spaces here",
+                "héllo wörld façade naïve résumé coöperate",
+                "Жизнь прекрасна и удивительна всегда",
+                "||| ~~~ ;;; ::: ,,, ...",
+                "1234 5678 9012 3456 7890",
+                "line one has words\r\nline two has more\r\n\r\nline four ends here");
+        for (String text : cases) {
+            assertMatchesLegacy(text);
+        }
+    }
+
+    @Test
+    void matchesLegacyChecksOnGeneratedCorpus() {
+        Random random = new Random(20240101L);
+        for (int i = 0; i < 2000; i++) {
+            assertMatchesLegacy(randomText(random, random.nextInt(i < 1000 ? 40 : 1200)));
+        }
+    }
+
+    @Test
+    void joinedScoresEqualScoreOfJoinedText() {
+        Random random = new Random(7L);
+        for (int i = 0; i < 200; i++) {
+            List<String> pages = new ArrayList<>();
+            List<TextQualityAnalyzer.Score> scores = new ArrayList<>();
+            for (int p = random.nextInt(5); p >= 0; p--) {
+                String page = randomText(random, random.nextInt(300));
+                pages.add(page);
+                scores.add(TextQualityAnalyzer.analyze(page));
+            }
+            assertThat(TextQualityAnalyzer.join(scores))
+                    .isEqualTo(TextQualityAnalyzer.analyze(String.join("\n", pages)));
+        }
+    }
+
+    @Test
+    void reportsGarbageLinesAndNonAsciiLetters() {
+        TextQualityAnalyzer.Score score = TextQualityAnalyzer.analyze("a clean line of text\n|~;: ,.-_ {}[]\nstraße");
+
+        assertThat(score.lines()).isEqualTo(3);
+        assertThat(score.garbageLines()).isEqualTo(1);
+        assertThat(score.nonAsciiLetters()).isEqualTo(1);
+    }
+
+    private static void assertMatchesLegacy(String text) {
+        TextQualityAnalyzer.Score score = TextQualityAnalyzer.analyze(text);
+        assertThat(score.cleanedLength()).as("cleaned length of %s", escape(text))
+                .isEqualTo(LegacyTextQuality.cleaned(text).length());
+        for (int minLength : MIN_LENGTHS) {
+            assertThat(score.isSufficient(minLength)).as("sufficient(%d) for %s", minLength, escape(text))
+                    .isEqualTo(LegacyTextQuality.isTextQualitySufficient(text, minLength));
+        }
+        for (String fileName : FILE_NAMES) {
+            assertThat(score.isLikelyHandwrittenOrPoorQuality(fileName)).as("poor quality for %s", escape(text))
+                    .isEqualTo(LegacyTextQuality.isLikelyHandwrittenOrPoorQuality(text, fileName));
+        }
+    }
+
+    // mostly short words of letters so texts regularly cross the five-meaningful-words line
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            if (random.nextInt(3) == 0) {
+                text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            } else {
+                for (int w = 1 + random.nextInt(6); w > 0; w--) {
+                    text.append((char) ('a' + random.nextInt(26)));
+                }
+                text.append(' ');
+            }
+        }
+        return text.toString();
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder();
+        text.chars().forEach(c -> escaped.append(c < 0x20 || c > 0x7E ? String.format("\\u%04X", c) : String.valueOf((char) c)));
+        return escaped.toString();
+    }
+}
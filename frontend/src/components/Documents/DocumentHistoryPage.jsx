@@ -7,10 +7,26 @@ import LogoutButton from '../auth/LogoutButton';
 
 function DocumentHistoryPage() {
   const [documents, setDocuments] = useState([]);
+  const [nextCursor, setNextCursor] = useState(null);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
   const [error, setError] = useState('');
   const { token, isAuthenticated } = useAuth(); 
 
+  // the list endpoint is paginated: each page carries the cursor for the next one
+  const fetchPage = async (cursor) => {
+    const res = await axios.get(
+      `${import.meta.env.VITE_BACKEND_API_URL}/api/documents/user`,
+      {
+        headers: {
+          'Authorization': `Bearer ${token}`
+        },
+        params: cursor ? { cursor } : {},
+      }
+    );
+    return res.data;
+  };
+
   useEffect(() => {
     const fetchDocuments = async () => {
       if (!isAuthenticated || !token) {
@@ -19,15 +35,9 @@ function DocumentHistoryPage() {
         return;
       }
      try {
-  const res = await axios.get(
-    `${import.meta.env.VITE_BACKEND_API_URL}/api/documents/user`,
-    {
-      headers: {
-        'Authorization': `Bearer ${token}`
-      },
-    }
-  );
-        setDocuments(res.data);
+        const page = await fetchPage(null);
+        setDocuments(page.items);
+        setNextCursor(page.nextCursor);
       } catch (err) {
         console.error('Failed to fetch documents:', err.response || err);
         setError('Failed to load document history. Please try again.');
@@ -39,6 +49,20 @@ function DocumentHistoryPage() {
     fetchDocuments();
   }, [isAuthenticated, token]);
 
+  const loadMore = async () => {
+    setLoadingMore(true);
+    try {
+      const page = await fetchPage(nextCursor);
+      setDocuments((previous) => [...previous, ...page.items]);
+      setNextCursor(page.nextCursor);
+    } catch (err) {
+      console.error('Failed to fetch more documents:', err.response || err);
+      setError('Failed to load document history. Please try again.');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
   if (loading) {
     return (
       <div className="main-dashboard-container">
@@ -75,11 +99,16 @@ function DocumentHistoryPage() {
               <p className="document-filename">{doc.originalFileName}</p>
               <div className="summary-preview-box">
                 <span className="summary-label">Summary:</span>
-                <span className="summary-text">{doc.summary ? doc.summary.substring(0, Math.min(doc.summary.length, 200)) + (doc.summary.length > 200 ? '...' : '') : 'No summary.'}</span>
+                <span className="summary-text">{doc.summaryPreview || 'No summary.'}</span>
               </div>
               <ReactRouterLink to={`/document/${doc.id}`} className="view-details-link">View Details</ReactRouterLink>
             </div>
           ))}
+          {nextCursor && (
+            <button className="view-details-link" onClick={loadMore} disabled={loadingMore}>
+              {loadingMore ? 'Loading...' : 'Load more'}
+            </button>
+          )}
         </div>
       )}
 